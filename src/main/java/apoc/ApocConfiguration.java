@@ -0,0 +1,44 @@
+package apoc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The <code>apoc.*</code> settings of neo4j.conf, provided by {@link ApocKernelExtensionFactory} when the database starts.
+ */
+public class ApocConfiguration {
+
+    public static final String PREFIX = "apoc.";
+
+    private static volatile Map<String, String> config = Collections.emptyMap();
+
+    public static void initialize(Map<String, String> params) {
+        Map<String, String> apoc = new HashMap<>();
+        params.forEach((key, value) -> {
+            if (key.startsWith(PREFIX)) apoc.put(key.substring(PREFIX.length()), value);
+        });
+        config = Collections.unmodifiableMap(apoc);
+    }
+
+    /**
+     * @param key the setting without the <code>apoc.</code> prefix
+     */
+    public static String get(String key, String defaultValue) {
+        return config.getOrDefault(key, defaultValue);
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = config.get(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + PREFIX + key + " must be an integer but was " + value, e);
+        }
+    }
+
+    public static Map<String, String> list() {
+        return config;
+    }
+}
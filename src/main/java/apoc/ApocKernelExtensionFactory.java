@@ -0,0 +1,62 @@
+package apoc;
+
+import apoc.meta.MetaStats;
+import apoc.monitor.Sampler;
+import apoc.periodic.JobStore;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+/**
+ * Hooks into the database lifecycle, to read the <code>apoc.*</code> settings before any procedure runs
+ * to re-arm the persisted periodic jobs, to start the monitoring sampler and to maintain the meta-graph.
+ */
+public class ApocKernelExtensionFactory extends KernelExtensionFactory<ApocKernelExtensionFactory.Dependencies> {
+
+    public interface Dependencies {
+        Config config();
+        GraphDatabaseAPI graphdatabaseAPI();
+        LogService log();
+    }
+
+    public ApocKernelExtensionFactory() {
+        super("APOC");
+    }
+
+    @Override
+    public Lifecycle newInstance(KernelContext context, Dependencies dependencies) throws Throwable {
+        return new LifecycleAdapter() {
+            private JobStore jobStore;
+            private Sampler sampler;
+            private MetaStats metaStats;
+
+            @Override
+            public void init() throws Throwable {
+                ApocConfiguration.initialize(dependencies.config().getParams());
+                Pools.validate(dependencies.log().getUserLog(Pools.class));
+            }
+
+            @Override
+            public void start() throws Throwable {
+                jobStore = JobStore.start(dependencies.graphdatabaseAPI(), context.fileSystem(), context.storeDir(),
+                        dependencies.log().getUserLog(JobStore.class));
+                sampler = Sampler.start(dependencies.graphdatabaseAPI(), dependencies.log().getInternalLog(Sampler.class));
+                metaStats = MetaStats.start(dependencies.graphdatabaseAPI());
+            }
+
+            @Override
+            public void stop() throws Throwable {
+                if (metaStats != null) metaStats.stop();
+                metaStats = null;
+                if (sampler != null) sampler.stop();
+                sampler = null;
+                if (jobStore != null) jobStore.stop();
+                jobStore = null;
+            }
+        };
+    }
+}
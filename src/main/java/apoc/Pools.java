@@ -0,0 +1,112 @@
+package apoc;
+
+import org.neo4j.logging.Log;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pools for procedures that split their work onto several threads or run it in the background.
+ * <p>
+ * Sizes are read from neo4j.conf when first used:
+ * <ul>
+ *     <li><code>apoc.pools.batch.size</code>, <code>apoc.pools.batch.queue</code> - workers for batches of bulk procedures ({@link #DEFAULT})</li>
+ *     <li><code>apoc.pools.background.size</code>, <code>apoc.pools.background.queue</code> - one-off background jobs ({@link #BACKGROUND})</li>
+ *     <li><code>apoc.pools.read.size</code>, <code>apoc.pools.read.queue</code> - parallel read batches of <code>apoc.get</code> ({@link #READ})</li>
+ *     <li><code>apoc.pools.scheduled.size</code> - repeated and delayed jobs ({@link #SCHEDULED})</li>
+ * </ul>
+ * The queues are bounded, when they are full submitting blocks until there is room again.
+ * Settings that aren't positive integers fall back to the defaults, {@link #validate(Log)} warns about them at startup.
+ */
+public class Pools {
+
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    static final List<String> SETTINGS = Arrays.asList("pools.batch.size", "pools.batch.queue",
+            "pools.background.size", "pools.background.queue", "pools.read.size", "pools.read.queue", "pools.scheduled.size");
+
+    public final static ExecutorService DEFAULT = bounded("apoc-worker",
+            setting("pools.batch.size", Math.max(2, CPUS)),
+            setting("pools.batch.queue", 1000));
+
+    public final static ExecutorService BACKGROUND = bounded("apoc-background",
+            setting("pools.background.size", Math.max(2, CPUS / 2)),
+            setting("pools.background.queue", 100));
+
+    /**
+     * Read-only batches, kept apart from the write batches of periodic and refactoring procedures.
+     */
+    public final static ExecutorService READ = bounded("apoc-reader",
+            setting("pools.read.size", Math.max(2, CPUS)),
+            setting("pools.read.queue", 100));
+
+    /**
+     * Only times jobs and the monitoring sampler, the jobs themselves run on {@link #BACKGROUND}.
+     */
+    public final static ScheduledExecutorService SCHEDULED = Executors.newScheduledThreadPool(
+            setting("pools.scheduled.size", Math.max(1, CPUS / 4)), threadFactory("apoc-scheduled"));
+
+    private final static Map<String, ThreadPoolExecutor> pools = new LinkedHashMap<>();
+    static {
+        pools.put("batch", (ThreadPoolExecutor) DEFAULT);
+        pools.put("background", (ThreadPoolExecutor) BACKGROUND);
+        pools.put("read", (ThreadPoolExecutor) READ);
+        pools.put("scheduled", (ThreadPoolExecutor) SCHEDULED);
+    }
+
+    /**
+     * Logs a warning for each pool setting that isn't a positive integer.
+     */
+    public static void validate(Log log) {
+        for (String key : SETTINGS) {
+            try {
+                if (ApocConfiguration.getInt(key, 1) < 1) {
+                    log.warn("Setting " + ApocConfiguration.PREFIX + key + " must be positive, using the default");
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn(e.getMessage() + ", using the default");
+            }
+        }
+    }
+
+    private static int setting(String key, int defaultValue) {
+        try {
+            int value = ApocConfiguration.getInt(key, defaultValue);
+            return value < 1 ? defaultValue : value;
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    public static Map<String, ThreadPoolExecutor> all() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    public static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return (runnable) -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutorService bounded(String prefix, int threads, int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                threadFactory(prefix), Pools::waitForRoom);
+    }
+
+    /**
+     * Backpressure instead of rejection, running the task in the caller would mix it into the caller's transaction.
+     */
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) throw new RejectedExecutionException("Pool is shut down");
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to submit task", e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package apoc.convert;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for JSON-like values (null, booleans, integers, floats, strings, lists and maps).
+ * <p>
+ * Integers are zig-zag varints, strings are length prefixed UTF-8.
+ * Lists and maps are prefixed with their size in bytes, so a path into the document can be
+ * followed by skipping over siblings without decoding them.
+ */
+public class BinaryJson {
+
+    static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION = 1;
+
+    static final byte NULL = 0, FALSE = 1, TRUE = 2, LONG = 3, DOUBLE = 4, STRING = 5, LIST = 6, MAP = 7;
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 2 && data[0] == MAGIC && data[1] == VERSION;
+    }
+
+    public static byte[] encode(Object value) {
+        Output out = new Output(64);
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.writeValue(value);
+        return out.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        return input(data).readValue();
+    }
+
+    /**
+     * Decodes only the value at the given path, see {@link apoc.util.JsonUtil#parsePath(String)}.
+     * @return the value or null if the path doesn't exist
+     */
+    public static Object decode(byte[] data, List<Object> path) {
+        Input in = input(data);
+        for (Object segment : path) {
+            if (!(segment instanceof String ? in.seekKey((String) segment) : in.seekIndex((Integer) segment))) {
+                return null;
+            }
+        }
+        return in.readValue();
+    }
+
+    private static Input input(byte[] data) {
+        if (!isEncoded(data)) throw new IllegalArgumentException("Not a binary json value");
+        return new Input(data, 2);
+    }
+
+    private static class Output {
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) write((int) (value >>> shift));
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            write(utf8);
+        }
+
+        int startContainer(byte tag, int count) {
+            write(tag);
+            int lengthPos = size;
+            ensure(4);
+            size += 4;
+            writeVarLong(count);
+            return lengthPos;
+        }
+
+        void endContainer(int lengthPos) {
+            int length = size - lengthPos - 4;
+            bytes[lengthPos] = (byte) (length >>> 24);
+            bytes[lengthPos + 1] = (byte) (length >>> 16);
+            bytes[lengthPos + 2] = (byte) (length >>> 8);
+            bytes[lengthPos + 3] = (byte) length;
+        }
+
+        void writeValue(Object value) {
+            if (value == null) {
+                write(NULL);
+            } else if (value instanceof Boolean) {
+                write((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Double || value instanceof Float) {
+                write(DOUBLE);
+                writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof Number) {
+                long l = ((Number) value).longValue();
+                write(LONG);
+                writeVarLong((l << 1) ^ (l >> 63));
+            } else if (value instanceof String || value instanceof Character) {
+                write(STRING);
+                writeString(value.toString());
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                int pos = startContainer(MAP, map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+                endContainer(pos);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                int pos = startContainer(LIST, list.size());
+                for (Object element : list) writeValue(element);
+                endContainer(pos);
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                int pos = startContainer(LIST, length);
+                for (int i = 0; i < length; i++) writeValue(Array.get(value, i));
+                endContainer(pos);
+            } else if (value instanceof Iterable) {
+                List<Object> list = new ArrayList<>();
+                for (Object element : (Iterable<?>) value) list.add(element);
+                writeValue(list);
+            } else {
+                throw new IllegalArgumentException("Can't encode value of type " + value.getClass().getName());
+            }
+        }
+
+        private void ensure(int count) {
+            if (size + count > bytes.length) {
+                byte[] bigger = new byte[Math.max(bytes.length * 2, size + count)];
+                System.arraycopy(bytes, 0, bigger, 0, size);
+                bytes = bigger;
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[size];
+            System.arraycopy(bytes, 0, result, 0, size);
+            return result;
+        }
+    }
+
+    private static class Input {
+        private final byte[] bytes;
+        private int pos;
+
+        Input(byte[] bytes, int pos) {
+            this.bytes = bytes;
+            this.pos = pos;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) value = (value << 8) | (bytes[pos++] & 0xFF);
+            return value;
+        }
+
+        int readInt() {
+            return (bytes[pos++] & 0xFF) << 24 | (bytes[pos++] & 0xFF) << 16 | (bytes[pos++] & 0xFF) << 8 | (bytes[pos++] & 0xFF);
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        Object readValue() {
+            byte tag = bytes[pos++];
+            switch (tag) {
+                case NULL: return null;
+                case FALSE: return false;
+                case TRUE: return true;
+                case LONG:
+                    long l = readVarLong();
+                    return (l >>> 1) ^ -(l & 1);
+                case DOUBLE: return Double.longBitsToDouble(readLong());
+                case STRING: return readString();
+                case LIST: {
+                    readInt();
+                    int count = (int) readVarLong();
+                    List<Object> list = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) list.add(readValue());
+                    return list;
+                }
+                case MAP: {
+                    readInt();
+                    int count = (int) readVarLong();
+                    Map<String, Object> map = new LinkedHashMap<>(count * 4 / 3 + 1);
+                    for (int i = 0; i < count; i++) {
+                        String key = readString();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                default: throw new IllegalStateException("Unknown type tag " + tag + " at " + (pos - 1));
+            }
+        }
+
+        void skipValue() {
+            byte tag = bytes[pos++];
+            switch (tag) {
+                case NULL: case FALSE: case TRUE: return;
+                case LONG: readVarLong(); return;
+                case DOUBLE: pos += 8; return;
+                case STRING: {
+                    int length = (int) readVarLong();
+                    pos += length;
+                    return;
+                }
+                case LIST: case MAP: {
+                    int length = readInt();
+                    pos += length;
+                    return;
+                }
+                default: throw new IllegalStateException("Unknown type tag " + tag + " at " + (pos - 1));
+            }
+        }
+
+        boolean seekKey(String key) {
+            if (bytes[pos] != MAP) return false;
+            pos += 5;
+            int count = (int) readVarLong();
+            byte[] expected = key.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < count; i++) {
+                int length = (int) readVarLong();
+                boolean matches = length == expected.length && regionMatches(expected, pos);
+                pos += length;
+                if (matches) return true;
+                skipValue();
+            }
+            return false;
+        }
+
+        boolean seekIndex(int index) {
+            if (bytes[pos] != LIST) return false;
+            pos += 5;
+            int count = (int) readVarLong();
+            if (index < 0 || index >= count) return false;
+            for (int i = 0; i < index; i++) skipValue();
+            return true;
+        }
+
+        private boolean regionMatches(byte[] expected, int offset) {
+            for (int i = 0; i < expected.length; i++) {
+                if (bytes[offset + i] != expected[i]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package apoc.convert;
+
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the decoded structures of JSON and binary properties per transaction, keyed by entity id and property key.
+ * <p>
+ * Kernel transactions are pooled and reused, so a cache belongs to a kernel transaction together with the start time and
+ * the last committed transaction id it was started with, the cache of an earlier use of the instance is dropped.
+ * Each entry also remembers the raw property value it was decoded from and is only used while the property still holds that value,
+ * so updates within the transaction are picked up. Cached structures are unmodifiable, callers can't change them for later reads.
+ */
+class DecodeCache {
+
+    static final int MAX_ENTRIES = 10_000;
+
+    /**
+     * Kernel transactions don't expose when they were started in this version.
+     */
+    private static final Field START_TIME = field("startTimeMillis");
+    private static final Field LAST_TX_ID = field("lastTransactionIdWhenStarted");
+
+    private static final Map<KernelTransaction, Cache> caches = new ConcurrentHashMap<>();
+
+    static Object get(KernelTransaction tx, long id, String key, Object raw, Function<Object, Object> decoder) {
+        Map<Key, Entry> cache = raw == null ? null : cache(tx, true);
+        if (cache == null) return decoder.apply(raw);
+        Key cacheKey = new Key(id, key);
+        Entry entry = cache.get(cacheKey);
+        if (entry != null && entry.matches(raw)) return entry.value;
+        Object value = unmodifiable(decoder.apply(raw));
+        if (cache.size() >= MAX_ENTRIES) cache.clear();
+        cache.put(cacheKey, new Entry(raw, value));
+        return value;
+    }
+
+    /**
+     * @return the cached decoded value if it is present and still valid for the raw value, null otherwise
+     */
+    static Object peek(KernelTransaction tx, long id, String key, Object raw) {
+        Map<Key, Entry> cache = raw == null ? null : cache(tx, false);
+        if (cache == null) return null;
+        Entry entry = cache.get(new Key(id, key));
+        return entry != null && entry.matches(raw) ? entry.value : null;
+    }
+
+    /**
+     * @return the cache of the current use of the transaction or null if it can't be told apart from earlier uses
+     */
+    private static Map<Key, Entry> cache(KernelTransaction tx, boolean create) {
+        if (START_TIME == null || LAST_TX_ID == null || !(tx instanceof KernelTransactionImplementation)) return null;
+        long started, lastTxId;
+        try {
+            started = START_TIME.getLong(tx);
+            lastTxId = LAST_TX_ID.getLong(tx);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+        Cache cache = caches.get(tx);
+        if (cache != null && cache.started == started && cache.lastTxId == lastTxId) return cache.entries;
+        if (!create) return null;
+        caches.keySet().removeIf((t) -> !t.isOpen());
+        cache = new Cache(started, lastTxId);
+        caches.put(tx, cache);
+        return cache.entries;
+    }
+
+    static Object unmodifiable(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> map.put(String.valueOf(k), unmodifiable(v)));
+            return Collections.unmodifiableMap(map);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object v : (List<?>) value) list.add(unmodifiable(v));
+            return Collections.unmodifiableList(list);
+        }
+        return value;
+    }
+
+    private static Field field(String name) {
+        try {
+            Field field = KernelTransactionImplementation.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static class Cache {
+        final long started;
+        final long lastTxId;
+        final Map<Key, Entry> entries = new HashMap<>();
+
+        Cache(long started, long lastTxId) {
+            this.started = started;
+            this.lastTxId = lastTxId;
+        }
+    }
+
+    private static class Key {
+        final long id;
+        final String key;
+
+        Key(long id, String key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Key && id == ((Key) o).id && key.equals(((Key) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(id) + key.hashCode();
+        }
+    }
+
+    private static class Entry {
+        final Object raw;
+        final Object value;
+
+        Entry(Object raw, Object value) {
+            this.raw = raw;
+            this.value = value;
+        }
+
+        boolean matches(Object other) {
+            if (raw instanceof byte[] && other instanceof byte[]) return Arrays.equals((byte[]) raw, (byte[]) other);
+            return Objects.equals(raw, other);
+        }
+    }
+}
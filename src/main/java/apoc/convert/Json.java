@@ -1,6 +1,5 @@
 package apoc.convert;
 
-import java.net.URL;
 import java.util.*;
 import java.io.*;
 import java.util.stream.*;
@@ -10,62 +9,143 @@ import apoc.result.ListResult;
 import apoc.result.MapResult;
 import apoc.result.ObjectResult;
 import apoc.result.StringResult;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
+import apoc.util.JsonUtil;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.procedure.*;
 import org.codehaus.jackson.map.ObjectMapper;
 
 public class Json {
 
-    public static ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    public final static ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    static {
+        OBJECT_MAPPER.registerModule(new JsonGraphModule());
+    }
+    // readers and writers are immutable and thread-safe, their serializers/deserializers are resolved once and then reused
+    public final static ObjectWriter WRITER = OBJECT_MAPPER.writer();
+    public final static ObjectReader OBJECT_READER = OBJECT_MAPPER.reader(Object.class);
+    public final static ObjectReader MAP_READER = OBJECT_MAPPER.reader(Map.class);
+    public final static ObjectReader LIST_READER = OBJECT_MAPPER.reader(List.class);
+
     @Context public org.neo4j.graphdb.GraphDatabaseService db;
+    @Context public KernelTransaction tx;
 
     @Procedure
-    @Description("apoc.convert.toJson([1,2,3]) or toJson({a:42,b:\"foo\",c:[1,2,3]})")
+    @Description("apoc.convert.toJson([1,2,3]) or toJson({a:42,b:\"foo\",c:[1,2,3]}), nodes, relationships and paths are written with id, labels/type and properties")
     public Stream<StringResult> toJson(@Name("value") Object value) {
-        try {
-            return Stream.of(new StringResult(OBJECT_MAPPER.writeValueAsString(value)));
-        } catch (IOException e) {
-            throw new RuntimeException("Can't convert " + value + " to json", e);
+        return Stream.of(new StringResult(toJsonString(value)));
+    }
+
+    @Procedure
+    @Description("apoc.convert.toJsonBatch([value1,value2,...]) YIELD value - converts each element of the list to a JSON string, returns the list of strings")
+    public Stream<ListResult> toJsonBatch(@Name("values") List<Object> values) {
+        List<Object> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            result.add(toJsonString(value));
         }
+        return Stream.of(new ListResult(result));
     }
 
     @Procedure
     @PerformsWrites
     @Description("apoc.json.setJsonProperty(node,key,complexValue) - sets value serialized to JSON as property with the given name on the node")
     public void setJsonProperty(@Name("node") Node node, @Name("key") String key, @Name("value") Object value) {
-        try {
-            node.setProperty(key,OBJECT_MAPPER.writeValueAsString(value));
-        } catch (IOException e) {
-            throw new RuntimeException("Can't convert " + value + " to json", e);
-        }
+        node.setProperty(key, toJsonString(value));
     }
 
     @Procedure
-    @Description("apoc.json.getJsonProperty(node,key) - converts serialized JSON in property to structure again")
+    @PerformsWrites
+    @Description("apoc.convert.setBinaryProperty(node,key,complexValue) - sets value in a compact binary encoding as byte[] property, read it with getJsonProperty")
+    public void setBinaryProperty(@Name("node") Node node, @Name("key") String key, @Name("value") Object value) {
+        node.setProperty(key, BinaryJson.encode(value));
+    }
+
+    @Procedure
+    @Description("apoc.json.getJsonProperty(node,key) - converts serialized JSON (or binary encoded) property to structure again, decoded values are cached for the transaction and unmodifiable")
     public Stream<ObjectResult> getJsonProperty(@Name("node") Node node, @Name("key") String key) {
-        String value = (String)node.getProperty(key, null);
+        Object raw = node.getProperty(key, null);
+        return Stream.of(new ObjectResult(DecodeCache.get(tx, node.getId(), key, raw, Json::decode)));
+    }
+
+    @Procedure
+    @Description("apoc.convert.getJsonPropertyPath(node,key,'$.a.b[0]') - returns only the value at the path of the JSON (or binary encoded) property, without decoding the whole document")
+    public Stream<ObjectResult> getJsonPropertyPath(@Name("node") Node node, @Name("key") String key, @Name("path") String path) {
+        Object raw = node.getProperty(key, null);
+        if (raw == null) return Stream.of(new ObjectResult(null));
+        List<Object> segments = JsonUtil.parsePath(path);
+        Object cached = DecodeCache.peek(tx, node.getId(), key, raw);
+        if (cached != null) {
+            return Stream.of(new ObjectResult(JsonUtil.valueAt(cached, segments)));
+        }
+        if (raw instanceof byte[]) {
+            return Stream.of(new ObjectResult(BinaryJson.decode((byte[]) raw, segments)));
+        }
+        return Stream.of(new ObjectResult(JsonUtil.readPath(raw.toString(), segments)));
+    }
+
+    private static Object decode(Object raw) {
+        if (raw == null) return null;
+        if (raw instanceof byte[]) return BinaryJson.decode((byte[]) raw);
         try {
-            return Stream.of(new ObjectResult(OBJECT_MAPPER.readValue(value, Object.class)));
+            return OBJECT_READER.readValue(raw.toString());
         } catch (IOException e) {
-            throw new RuntimeException("Can't convert " + value + " to json", e);
+            throw new RuntimeException("Can't convert " + raw + " to json", e);
         }
     }
 
     @Procedure
     @Description("apoc.convert.fromJsonMap('{\"a\":42,\"b\":\"foo\",\"c\":[1,2,3]}')")
     public Stream<MapResult> fromJsonMap(@Name("map") String value) {
-        try {
-            return Stream.of(new MapResult(OBJECT_MAPPER.readValue(value, Map.class)));
-        } catch (IOException e) {
-            throw new RuntimeException("Can't deserialize to Map:\n"+value,e);
+        return Stream.of(new MapResult(readMap(value)));
+    }
+
+    @Procedure
+    @Description("apoc.convert.fromJsonMapBatch(['{\"a\":42}','{\"b\":\"foo\"}',...]) YIELD value - converts each JSON string in the list to a map, returns the list of maps")
+    public Stream<ListResult> fromJsonMapBatch(@Name("maps") List<String> values) {
+        List<Object> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(readMap(value));
         }
+        return Stream.of(new ListResult(result));
     }
 
     @Procedure
     @Description("apoc.convert.fromJsonList('[1,2,3]')")
     public Stream<ListResult> fromJsonList(@Name("list") String value) {
+        return Stream.of(new ListResult(readList(value)));
+    }
+
+    @Procedure
+    @Description("apoc.convert.fromJsonListBatch(['[1,2,3]','[4,5]',...]) YIELD value - converts each JSON string in the list to a list, returns the list of lists")
+    public Stream<ListResult> fromJsonListBatch(@Name("lists") List<String> values) {
+        List<Object> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(readList(value));
+        }
+        return Stream.of(new ListResult(result));
+    }
+
+    public static String toJsonString(Object value) {
+        try {
+            return WRITER.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't convert " + value + " to json", e);
+        }
+    }
+
+    private static Map<String, Object> readMap(String value) {
+        try {
+            return MAP_READER.readValue(value);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't deserialize to Map:\n"+value,e);
+        }
+    }
+
+    private static List<Object> readList(String value) {
         try {
-            return Stream.of(new ListResult(OBJECT_MAPPER.readValue(value, List.class)));
+            return LIST_READER.readValue(value);
         } catch (IOException e) {
             throw new RuntimeException("Can't deserialize to List:\n"+value,e);
         }
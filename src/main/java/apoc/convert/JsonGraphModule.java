@@ -0,0 +1,80 @@
+package apoc.convert;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.Version;
+import org.codehaus.jackson.map.JsonSerializer;
+import org.codehaus.jackson.map.SerializerProvider;
+import org.codehaus.jackson.map.module.SimpleModule;
+import org.neo4j.graphdb.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Serializes nodes, relationships and paths by writing their id, labels/type and properties directly,
+ * instead of introspecting the entity proxies as beans (which would e.g. load all relationships of a node).
+ */
+public class JsonGraphModule extends SimpleModule {
+
+    public JsonGraphModule() {
+        super("apoc-graph", new Version(1, 0, 0, null));
+        addSerializer(Node.class, new NodeSerializer());
+        addSerializer(Relationship.class, new RelationshipSerializer());
+        addSerializer(Path.class, new PathSerializer());
+    }
+
+    static void writeProperties(PropertyContainer entity, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        jgen.writeObjectFieldStart("properties");
+        for (Map.Entry<String, Object> property : entity.getAllProperties().entrySet()) {
+            provider.defaultSerializeField(property.getKey(), property.getValue(), jgen);
+        }
+        jgen.writeEndObject();
+    }
+
+    static class NodeSerializer extends JsonSerializer<Node> {
+        @Override
+        public void serialize(Node node, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeNumberField("id", node.getId());
+            jgen.writeArrayFieldStart("labels");
+            for (Label label : node.getLabels()) {
+                jgen.writeString(label.name());
+            }
+            jgen.writeEndArray();
+            writeProperties(node, jgen, provider);
+            jgen.writeEndObject();
+        }
+    }
+
+    static class RelationshipSerializer extends JsonSerializer<Relationship> {
+        @Override
+        public void serialize(Relationship rel, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeNumberField("id", rel.getId());
+            jgen.writeStringField("type", rel.getType().name());
+            jgen.writeNumberField("start", rel.getStartNode().getId());
+            jgen.writeNumberField("end", rel.getEndNode().getId());
+            writeProperties(rel, jgen, provider);
+            jgen.writeEndObject();
+        }
+    }
+
+    static class PathSerializer extends JsonSerializer<Path> {
+        @Override
+        public void serialize(Path path, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeNumberField("length", path.length());
+            jgen.writeArrayFieldStart("nodes");
+            for (Node node : path.nodes()) {
+                provider.defaultSerializeValue(node, jgen);
+            }
+            jgen.writeEndArray();
+            jgen.writeArrayFieldStart("relationships");
+            for (Relationship rel : path.relationships()) {
+                provider.defaultSerializeValue(rel, jgen);
+            }
+            jgen.writeEndArray();
+            jgen.writeEndObject();
+        }
+    }
+}
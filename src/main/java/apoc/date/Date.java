@@ -121,6 +121,13 @@ public class Date {
 		return Stream.of(new LongResult(parse.getTime()));
 	}
 
+	/**
+	 * @return a new (not thread safe) format for the pattern, in UTC unless the pattern contains a time zone
+	 */
+	public static DateFormat dateFormat(final String pattern) {
+		return getFormat(pattern);
+	}
+
 	private static DateFormat getFormat(final String pattern) {
 		String actualPattern = getPattern(pattern);
 		SimpleDateFormat format = new SimpleDateFormat(actualPattern);
@@ -1,47 +1,216 @@
 package apoc.get;
 
 import apoc.Description;
+import apoc.Pools;
 import apoc.result.NodeResult;
 import apoc.result.RelationshipResult;
-import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
-import java.util.Collection;
-import java.util.Spliterator;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class Get {
 
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
     @Context
     public GraphDatabaseService db;
 
+    @Context
+    public GraphDatabaseAPI api;
+
     @Procedure
     @Description("apoc.get.nodes(node|id|[ids]) - quickly returns all nodes with these id's")
     public Stream<NodeResult> nodes(@Name("nodes") Object ids) {
-        return ids(ids).parallel().mapToObj( i -> db.getNodeById(i)).map(NodeResult::new);
+        return ids(ids).mapToObj( i -> db.getNodeById(i)).map(NodeResult::new);
     }
 
     @Procedure
     @Description("apoc.get.rels(rel|id|[ids]) - quickly returns all relationships with these id's")
     public Stream<RelationshipResult> rels(@Name("relationships") Object ids) {
-        return ids(ids).parallel().mapToObj( i -> db.getRelationshipById(i)).map(RelationshipResult::new);
+        return ids(ids).mapToObj( i -> db.getRelationshipById(i)).map(RelationshipResult::new);
+    }
+
+    @Procedure
+    @Description("apoc.get.nodesBulk(node|id|[ids],{ordered:false,missing:'skip',properties:false,batchSize:10000,parallel:false}) YIELD id, node, properties, found - reads nodes in id order in batches, with ordered:true in input order, missing:'skip'|'report'|'fail', properties:true or [keys] prefetches properties, parallel:true reads the batches in separate transactions that only see committed data")
+    public Stream<NodeBulkResult> nodesBulk(@Name("nodes") Object ids, @Name("config") Map<String, Object> config) {
+        return bulk(ids, config, "Node", (db, id, keys) -> {
+            Node node = db.getNodeById(id);
+            return new NodeBulkResult(id, node, properties(node, keys), true);
+        }, (id) -> new NodeBulkResult(id, null, null, false), NodeBulkResult[]::new);
+    }
+
+    @Procedure
+    @Description("apoc.get.relsBulk(rel|id|[ids],{ordered:false,missing:'skip',properties:false,batchSize:10000,parallel:false}) YIELD id, rel, properties, found - reads relationships in id order in batches, with ordered:true in input order, missing:'skip'|'report'|'fail', properties:true or [keys] prefetches properties, parallel:true reads the batches in separate transactions that only see committed data")
+    public Stream<RelationshipBulkResult> relsBulk(@Name("relationships") Object ids, @Name("config") Map<String, Object> config) {
+        return bulk(ids, config, "Relationship", (db, id, keys) -> {
+            Relationship rel = db.getRelationshipById(id);
+            return new RelationshipBulkResult(id, rel, properties(rel, keys), true);
+        }, (id) -> new RelationshipBulkResult(id, null, null, false), RelationshipBulkResult[]::new);
+    }
+
+    public static class NodeBulkResult {
+        public final long id;
+        public final Node node;
+        public final Map<String, Object> properties;
+        public final boolean found;
+
+        public NodeBulkResult(long id, Node node, Map<String, Object> properties, boolean found) {
+            this.id = id;
+            this.node = node;
+            this.properties = properties;
+            this.found = found;
+        }
+    }
+
+    public static class RelationshipBulkResult {
+        public final long id;
+        public final Relationship rel;
+        public final Map<String, Object> properties;
+        public final boolean found;
+
+        public RelationshipBulkResult(long id, Relationship rel, Map<String, Object> properties, boolean found) {
+            this.id = id;
+            this.rel = rel;
+            this.properties = properties;
+            this.found = found;
+        }
+    }
+
+    private interface Fetcher<T> {
+        T fetch(GraphDatabaseService db, long id, String[] keys);
+    }
+
+    private interface Missing<T> {
+        T missing(long id);
+    }
+
+    private interface ArrayFactory<T> {
+        T[] create(int size);
+    }
+
+    private <T> Stream<T> bulk(Object ids, Map<String, Object> config, String type, Fetcher<T> fetcher, Missing<T> missing, ArrayFactory<T> arrays) {
+        if (config == null) config = Collections.emptyMap();
+        boolean ordered = Boolean.TRUE.equals(config.get("ordered"));
+        boolean parallel = Boolean.TRUE.equals(config.get("parallel"));
+        int batchSize = config.get("batchSize") instanceof Number ? Math.max(1, ((Number) config.get("batchSize")).intValue()) : DEFAULT_BATCH_SIZE;
+        String onMissing = String.valueOf(config.getOrDefault("missing", "skip")).toLowerCase();
+        if (!Arrays.asList("skip", "report", "fail").contains(onMissing)) {
+            throw new RuntimeException("Unknown value for missing: " + onMissing + ", use one of 'skip','report','fail'");
+        }
+        String[] keys = propertyKeys(config.get("properties"));
+
+        long[] input = ids(ids).toArray();
+        int[] positions = sortedPositions(input);
+        int batches = (input.length + batchSize - 1) / batchSize;
+
+        List<Future<T[]>> futures = new ArrayList<>(batches);
+        List<T[]> results = new ArrayList<>(batches);
+        for (int b = 0; b < batches; b++) {
+            int from = b * batchSize, to = Math.min(input.length, from + batchSize);
+            if (parallel && batches > 1) {
+                futures.add(Pools.READ.submit(() -> {
+                    try (Transaction tx = api.beginTx()) {
+                        T[] batch = fetch(api, input, positions, from, to, type, onMissing, keys, fetcher, missing, arrays);
+                        tx.success();
+                        return batch;
+                    }
+                }));
+            } else {
+                results.add(fetch(db, input, positions, from, to, type, onMissing, keys, fetcher, missing, arrays));
+            }
+        }
+        for (Future<T[]> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException | ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                Throwable cause = e.getCause() instanceof RuntimeException ? e.getCause() : e;
+                throw new RuntimeException("Error reading " + type.toLowerCase() + "s: " + cause.getMessage(), cause);
+            }
+        }
+
+        if (ordered) {
+            T[] inOrder = arrays.create(input.length);
+            int i = 0;
+            for (T[] batch : results) {
+                for (T row : batch) inOrder[positions[i++]] = row;
+            }
+            return Stream.of(inOrder).filter(Objects::nonNull);
+        }
+        return results.stream().flatMap(Stream::of).filter(Objects::nonNull);
+    }
+
+    private static <T> T[] fetch(GraphDatabaseService db, long[] input, int[] positions, int from, int to, String type, String onMissing,
+                                 String[] keys, Fetcher<T> fetcher, Missing<T> missing, ArrayFactory<T> arrays) {
+        T[] batch = arrays.create(to - from);
+        for (int i = from; i < to; i++) {
+            long id = input[positions[i]];
+            try {
+                batch[i - from] = fetcher.fetch(db, id, keys);
+            } catch (NotFoundException e) {
+                if (onMissing.equals("fail")) throw new RuntimeException(type + " with id " + id + " not found", e);
+                if (onMissing.equals("report")) batch[i - from] = missing.missing(id);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * @return the input positions ordered by id, so that the store is read sequentially
+     */
+    private static int[] sortedPositions(long[] ids) {
+        boolean packable = Arrays.stream(ids).allMatch(id -> id >= 0 && id <= Integer.MAX_VALUE);
+        if (!packable) {
+            return LongStream.range(0, ids.length).boxed().sorted(Comparator.comparingLong(i -> ids[i.intValue()]))
+                    .mapToInt(Long::intValue).toArray();
+        }
+        // id in the upper, position in the lower half so a primitive sort orders by id and keeps the input order of duplicates
+        long[] packed = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) packed[i] = ids[i] << 32 | i;
+        Arrays.sort(packed);
+        int[] positions = new int[ids.length];
+        for (int i = 0; i < packed.length; i++) positions[i] = (int) packed[i];
+        return positions;
+    }
+
+    private static String[] propertyKeys(Object properties) {
+        if (properties == null || Boolean.FALSE.equals(properties)) return null;
+        if (Boolean.TRUE.equals(properties)) return new String[0];
+        if (properties instanceof Collection) return ((Collection<?>) properties).stream().map(String::valueOf).toArray(String[]::new);
+        return new String[]{properties.toString()};
+    }
+
+    private static Map<String, Object> properties(PropertyContainer pc, String[] keys) {
+        if (keys == null) return null;
+        return keys.length == 0 ? pc.getAllProperties() : pc.getProperties(keys);
     }
 
     private LongStream ids(Object ids) {
         if (ids == null) return LongStream.empty();
-        if (ids instanceof Number) return LongStream.of(((Number)ids).longValue());
+        if (ids instanceof Number || ids instanceof Node || ids instanceof Relationship) return LongStream.of(id(ids));
         if (ids instanceof Collection) {
-            Collection<Object> coll = (Collection<Object>) ids;
-            return coll.stream().mapToLong( (o) -> ((Number)o).longValue());
+            Collection<?> coll = (Collection<?>) ids;
+            return coll.stream().mapToLong(Get::id);
         }
         if (ids instanceof Iterable) {
-            Spliterator<Object> spliterator = ((Iterable) ids).spliterator();
-            return StreamSupport.stream(spliterator,false).mapToLong( (o) -> ((Number)o).longValue());
+            Spliterator<?> spliterator = ((Iterable<?>) ids).spliterator();
+            return StreamSupport.stream(spliterator,false).mapToLong(Get::id);
         }
         throw new RuntimeException("Can't convert "+ids.getClass()+" to a stream of long ids");
     }
+
+    private static long id(Object o) {
+        if (o instanceof Node) return ((Node) o).getId();
+        if (o instanceof Relationship) return ((Relationship) o).getId();
+        return ((Number) o).longValue();
+    }
 }
@@ -9,7 +9,7 @@ import java.util.stream.Stream;
 public class Help {
 
     @Procedure("apoc.help")
-    @Description("Provides the description of the procedure")
+    @Description("apoc.help('name' or 'words') - returns name, description, signature and whether they write of the procedures whose name starts or ends with the given name, otherwise of the procedures matching the words (e.g. 'write index') in their name, signature or description, best match first")
     public Stream<HelpResult> info(@Name("proc") String name) throws Exception {
         return HelpScanner.find(name);
     }
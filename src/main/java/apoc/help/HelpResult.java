@@ -8,10 +8,16 @@ public class HelpResult {
     public String name;
     public String text;
     public boolean writes;
+    public String signature;
 
     public HelpResult(String name, String text, boolean writes) {
+        this(name, text, writes, null);
+    }
+
+    public HelpResult(String name, String text, boolean writes, String signature) {
         this.name = name;
         this.text = text;
         this.writes = writes;
+        this.signature = signature;
     }
 }
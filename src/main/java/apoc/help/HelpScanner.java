@@ -9,34 +9,78 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
 import java.util.*;
 import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
+ * Reads the procedure annotations from the class files of the apoc jar (or classes directory) with ASM, without loading the classes.
+ * The scan runs once, on the first call to {@link #find}.
+ *
  * @author mh
  * @since 11.04.16
  */
 public class HelpScanner {
 
-    final static Map<String,HelpResult> procedures = new TreeMap<>();
+    final Map<String,HelpResult> procedures = new TreeMap<>();
 
-    static {
-        new HelpScanner().scanAll();
-    }
     public static final String JAR_NAME_PART = "apoc";
+    public static final String PACKAGE_PATH = "apoc/";
+
+    /**
+     * Holder idiom, the scan happens when the index is first used and not when the procedures are loaded.
+     */
+    private static class Registry {
+        static final Map<String, HelpResult> PROCEDURES = new HelpScanner().scan();
+        static final Index INDEX = new Index(PROCEDURES);
+        static final TextIndex TEXT = new TextIndex(PROCEDURES.values());
+    }
+
+    /**
+     * Procedures by name and by reversed name, so that prefix and suffix lookups are range queries.
+     */
+    static class Index {
+        private final NavigableMap<String, HelpResult> byName = new TreeMap<>();
+        private final NavigableMap<String, HelpResult> byReversedName = new TreeMap<>();
+
+        Index(Map<String, HelpResult> procedures) {
+            byName.putAll(procedures);
+            procedures.forEach((name, result) -> byReversedName.put(reverse(name), result));
+        }
+
+        Stream<HelpResult> find(String name) {
+            Map<String, HelpResult> result = new TreeMap<>(prefixed(byName, name));
+            for (HelpResult help : prefixed(byReversedName, reverse(name)).values()) result.put(help.name, help);
+            return result.values().stream();
+        }
+
+        private static SortedMap<String, HelpResult> prefixed(NavigableMap<String, HelpResult> map, String prefix) {
+            return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        private static String reverse(String name) {
+            return new StringBuilder(name).reverse().toString();
+        }
+    }
 
     void handleClass(InputStream in) throws IOException {
         MyClassVisitor cv = new MyClassVisitor();
-        new ClassReader(in).accept(cv, 0);
+        new ClassReader(in).accept(cv, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     }
 
+    /**
+     * @return the procedures whose name starts or ends with the given name,
+     * if there are none the procedures matching the words of the name in their name, signature or description, best match first
+     */
     public static Stream<HelpResult> find(String name) {
         if (name==null) return Stream.empty();
-        return procedures.entrySet().stream()
-                .filter(e -> e.getKey().startsWith(name) || e.getKey().endsWith(name))
-                .map(Map.Entry::getValue);
+        List<HelpResult> byName = Registry.INDEX.find(name).collect(Collectors.toList());
+        return byName.isEmpty() ? Registry.TEXT.search(name) : byName.stream();
     }
 
     class MyClassVisitor extends ClassVisitor {
@@ -62,6 +106,19 @@ public class HelpScanner {
                 boolean isProcedure;
                 boolean performsWrites;
                 String procedureName = packageName + "." + name;
+                String[] parameterNames = new String[Type.getArgumentTypes(desc).length];
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String annotation, boolean visible) {
+                    if (!annotation.equals("Lorg/neo4j/procedure/Name;") || parameter >= parameterNames.length) return null;
+                    return new AnnotationVisitor(api) {
+                        @Override
+                        public void visit(String name, Object value) {
+                            if (Objects.equals(name, "value") && value != null) parameterNames[parameter] = value.toString();
+                        }
+                    };
+                }
+
                 @Override
                 public AnnotationVisitor visitAnnotation(String annotation, boolean b) {
 //                    System.out.println("annotation = " + annotation);
@@ -99,15 +156,46 @@ public class HelpScanner {
                 @Override
                 public void visitEnd() {
                     if (isProcedure) {
-                     System.err.printf("APOC: %s declares procedure %s writes %s desc %s%n", className, procedureName, performsWrites, descriptionText);
-                     procedures.put(procedureName,new HelpResult(procedureName,descriptionText,performsWrites));
+                        String procedureSignature = signature(procedureName, parameterNames, desc, signature);
+                        procedures.put(procedureName,new HelpResult(procedureName,descriptionText,performsWrites,procedureSignature));
                     }
                 }
             };
         }
     }
 
+    /**
+     * @return e.g. <code>apoc.load.json(url :: String) :: MapResult</code>, the result type is the element type of the returned stream
+     */
+    static String signature(String procedureName, String[] parameterNames, String desc, String genericSignature) {
+        Type[] types = Type.getArgumentTypes(desc);
+        StringJoiner parameters = new StringJoiner(", ", procedureName + "(", ")");
+        for (int i = 0; i < types.length; i++) {
+            String parameter = parameterNames[i] == null ? "arg" + i : parameterNames[i];
+            parameters.add(parameter + " :: " + simpleName(types[i].getClassName()));
+        }
+        String result = "VOID";
+        if (genericSignature != null) {
+            Matcher matcher = STREAM_ELEMENT.matcher(genericSignature);
+            if (matcher.find()) result = simpleName(matcher.group(1).replace('/', '.'));
+        }
+        return parameters + " :: " + result;
+    }
+
+    private static final Pattern STREAM_ELEMENT = Pattern.compile("\\)Ljava/util/stream/Stream<L([^;<]+)");
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1).replace('$', '.');
+    }
+
+    /**
+     * @return the location of the apoc classes, or all classloader urls if it is unknown
+     */
     List<URL> getRootUrls() {
+        CodeSource codeSource = HelpScanner.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            return Collections.singletonList(codeSource.getLocation());
+        }
         List<URL> result = new ArrayList<>();
 
         ClassLoader cl = Thread.currentThread().getContextClassLoader();
@@ -121,14 +209,21 @@ public class HelpScanner {
         return result;
     }
 
+    Map<String, HelpResult> scan() {
+        scanAll();
+        return procedures;
+    }
+
     void scanAll() {
         try {
             for (URL url : getRootUrls()) {
-                File f = new File(url.getPath());
+                if (!"file".equals(url.getProtocol())) continue;
+                File f = new File(url.toURI());
                 if (f.isDirectory()) {
-                    visitFile(f);
-                } else {
-                    visitJar(url);
+                    File packageDir = new File(f, PACKAGE_PATH);
+                    visitFile(packageDir.isDirectory() ? packageDir : f);
+                } else if (f.getName().endsWith(".jar")) {
+                    visitJar(f);
                 }
             }
         } catch(Exception e) {
@@ -144,7 +239,6 @@ public class HelpScanner {
                     visitFile(child);
                 }
             }
-// we don't need to scan plain class files
         } else if (f.getName().endsWith(".class")) {
             try (FileInputStream in = new FileInputStream(f)) {
                 handleClass(in);
@@ -152,26 +246,23 @@ public class HelpScanner {
         } else {
             String fileName = f.getName();
             if (fileName.endsWith(".jar") && fileName.contains(JAR_NAME_PART)) {
-                try (FileInputStream in = new FileInputStream(f)) {
-                    visitJar(in);
-                }
+                visitJar(f);
             }
         }
     }
 
-    void visitJar(URL url) throws IOException {
-        if (!url.getPath().contains(JAR_NAME_PART)) return;
-        try (InputStream urlIn = url.openStream()) {
-            visitJar(urlIn);
-        }
-    }
-
-    private void visitJar(InputStream in) throws IOException {
-        try (JarInputStream jarIn = new JarInputStream(in)) {
-            JarEntry entry;
-            while ((entry = jarIn.getNextJarEntry()) != null) {
-                if (entry.getName().endsWith(".class")) {
-                    handleClass(jarIn);
+    /**
+     * Reads only the class files of the apoc package, through the jar's central directory.
+     */
+    void visitJar(File file) throws IOException {
+        try (JarFile jar = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().startsWith(PACKAGE_PATH) && entry.getName().endsWith(".class")) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        handleClass(in);
+                    }
                 }
             }
         }
@@ -0,0 +1,102 @@
+package apoc.help;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index over the name, signature and description of the procedures, ranked by tf-idf.
+ * <p>
+ * Terms are lower-cased words, camelCase names are split into their parts as well, a plural "s" is dropped.
+ * Procedures that write also have the term <code>write</code>, the others <code>read</code>.
+ * A term matches longer terms starting with it at half the weight, so "conv" finds "convert".
+ * Documents matching more of the query terms rank first.
+ */
+class TextIndex {
+
+    static final double NAME_WEIGHT = 3;
+    static final double SIGNATURE_WEIGHT = 2;
+    static final double FLAG_WEIGHT = 2;
+    static final double TEXT_WEIGHT = 1;
+    static final double PREFIX_MATCH = 0.5;
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "any", "anything", "about", "all", "as", "at", "by", "for", "from", "in", "into", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "with", "which", "what", "procedure", "procedures", "apoc"));
+
+    private final List<HelpResult> documents = new ArrayList<>();
+    /** term -> document -> weight */
+    private final NavigableMap<String, Map<Integer, Double>> postings = new TreeMap<>();
+
+    TextIndex(Collection<HelpResult> procedures) {
+        for (HelpResult procedure : procedures) {
+            int doc = documents.size();
+            documents.add(procedure);
+            add(doc, procedure.name, NAME_WEIGHT);
+            if (procedure.signature != null) {
+                int params = procedure.signature.indexOf('(');
+                add(doc, params == -1 ? procedure.signature : procedure.signature.substring(params), SIGNATURE_WEIGHT);
+            }
+            if (procedure.text != null) add(doc, procedure.text, TEXT_WEIGHT);
+            add(doc, procedure.writes ? "write" : "read", FLAG_WEIGHT);
+        }
+    }
+
+    private void add(int doc, String text, double weight) {
+        for (String term : terms(text)) {
+            postings.computeIfAbsent(term, k -> new HashMap<>()).merge(doc, weight, Double::sum);
+        }
+    }
+
+    /**
+     * @return the matching procedures, best match first
+     */
+    Stream<HelpResult> search(String query) {
+        Set<String> queryTerms = new LinkedHashSet<>(terms(query));
+        if (queryTerms.isEmpty()) return Stream.empty();
+        Map<Integer, double[]> scores = new HashMap<>(); // score, matched terms
+        for (String queryTerm : queryTerms) {
+            Map<Integer, Double> termScores = new HashMap<>();
+            for (Map.Entry<String, Map<Integer, Double>> entry : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                double boost = entry.getKey().equals(queryTerm) ? 1 : PREFIX_MATCH;
+                double idf = Math.log(1 + (double) documents.size() / entry.getValue().size());
+                entry.getValue().forEach((doc, weight) -> termScores.merge(doc, boost * weight * idf, Math::max));
+            }
+            termScores.forEach((doc, score) -> {
+                double[] total = scores.computeIfAbsent(doc, k -> new double[2]);
+                total[0] += score;
+                total[1]++;
+            });
+        }
+        return scores.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Integer, double[]>>comparingDouble(e -> -e.getValue()[1])
+                        .thenComparingDouble(e -> -e.getValue()[0])
+                        .thenComparing(e -> documents.get(e.getKey()).name))
+                .map(e -> documents.get(e.getKey()));
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : text.split("[^\\p{Alnum}]+")) {
+            if (word.isEmpty()) continue;
+            addTerm(terms, word);
+            String[] parts = word.split("(?<=\\p{Ll})(?=\\p{Lu})");
+            if (parts.length > 1) for (String part : parts) addTerm(terms, part);
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String word) {
+        String term = word.toLowerCase();
+        if (STOP_WORDS.contains(term)) return;
+        terms.add(stem(term));
+    }
+
+    static String stem(String term) {
+        if (term.length() <= 3) return term;
+        if (term.endsWith("es") && term.length() > 4 && "sxzh".indexOf(term.charAt(term.length() - 3)) != -1) {
+            return term.substring(0, term.length() - 2);
+        }
+        if (term.endsWith("s") && !term.endsWith("ss")) return term.substring(0, term.length() - 1);
+        return term;
+    }
+}
@@ -0,0 +1,149 @@
+package apoc.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small CSV parser working directly on bytes. Fields may be quoted, quotes inside of quoted fields are doubled.
+ * Separator and quote have to be single byte characters, field contents are decoded as UTF-8.
+ * Empty lines are skipped.
+ */
+public class CsvParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final int separator;
+    private final int quote;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos, limit;
+    private long bufferOffset;
+    private long lines;
+    private long recordLine;
+
+    private byte[] field = new byte[256];
+    private int fieldLength;
+    private int lastFieldCount = 10;
+    private boolean endedInQuotes;
+
+    public CsvParser(InputStream in, char separator, char quote) {
+        if (separator > 127 || quote > 127) throw new IllegalArgumentException("Separator and quote character have to be ASCII");
+        this.in = in;
+        this.separator = separator;
+        this.quote = quote;
+    }
+
+    /**
+     * @return the fields of the next record or null at the end of the input
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>(lastFieldCount);
+        boolean inQuotes = false, quoted = false, content = false;
+        fieldLength = 0;
+        while (true) {
+            int b = read();
+            if (b == -1) {
+                if (!content) return null;
+                endedInQuotes = inQuotes;
+                fields.add(field());
+                break;
+            }
+            if (inQuotes) {
+                if (b == quote) {
+                    int following = read();
+                    if (following == quote) {
+                        append(quote);
+                    } else {
+                        inQuotes = false;
+                        unread(following);
+                    }
+                } else {
+                    if (b == '\n') lines++;
+                    append(b);
+                }
+                continue;
+            }
+            if (b == '\r') continue;
+            if (b == '\n') {
+                lines++;
+                if (!content) continue;
+                fields.add(field());
+                break;
+            }
+            if (!content) {
+                content = true;
+                recordLine = lines;
+            }
+            if (b == separator) {
+                fields.add(field());
+                fieldLength = 0;
+                quoted = false;
+            } else if (b == quote && fieldLength == 0 && !quoted) {
+                inQuotes = quoted = true;
+            } else {
+                append(b);
+            }
+        }
+        lastFieldCount = fields.size();
+        return fields;
+    }
+
+    /**
+     * @return zero based line number at which the last record started
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * @return true if the input ended inside of a quoted field
+     */
+    public boolean endedInQuotes() {
+        return endedInQuotes;
+    }
+
+    /**
+     * @return number of line breaks consumed so far
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * @return number of bytes consumed from the input so far
+     */
+    public long getPosition() {
+        return bufferOffset + pos;
+    }
+
+    private String field() {
+        return new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+    }
+
+    private void append(int b) {
+        if (fieldLength == field.length) {
+            byte[] bigger = new byte[field.length * 2];
+            System.arraycopy(field, 0, bigger, 0, fieldLength);
+            field = bigger;
+        }
+        field[fieldLength++] = (byte) b;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            bufferOffset += limit;
+            pos = limit = 0;
+            int read = in.read(buffer, 0, buffer.length);
+            if (read <= 0) return -1;
+            limit = read;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private void unread(int b) {
+        if (b != -1) pos--;
+    }
+}
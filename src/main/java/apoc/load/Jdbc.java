@@ -1,6 +1,7 @@
 package apoc.load;
 
 import apoc.Description;
+import apoc.monitor.ProcedureStats;
 import apoc.result.RowResult;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
@@ -29,6 +30,10 @@ public class Jdbc {
     @Procedure
     @Description("apoc.load.jdbc('jdbc:derby:derbyDB','PERSON' || 'SELECT * FROM PERSON WHERE AGE > 18') YIELD row CREATE (:Person {name:row.name}) load from relational database, either a full table or a sql statement")
     public Stream<RowResult> jdbc(@Name("jdbc") String url, @Name("tableOrSql") String tableOrSelect) {
+        return ProcedureStats.track("apoc.load.jdbc", () -> executeQuery(url, tableOrSelect));
+    }
+
+    private Stream<RowResult> executeQuery(String url, String tableOrSelect) {
         String query = tableOrSelect.indexOf(' ') == -1 ?
                 "SELECT * FROM " + tableOrSelect : tableOrSelect;
         try {
@@ -0,0 +1,414 @@
+package apoc.load;
+
+import apoc.Description;
+import apoc.Pools;
+import apoc.meta.Meta;
+import apoc.monitor.ProcedureStats;
+import apoc.util.MappedInputStream;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+public class LoadCsv {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    @Context public GraphDatabaseService db;
+
+    @Procedure
+    @Description("apoc.load.csv('url',{sep:',',quoteChar:'\"',header:true,skip:0,limit:-1,types:{age:'INTEGER'},parallel:1}) YIELD lineNo, list, map - load CSV from a local file (memory mapped, '.gz' decompressed) or url, with parallel > 1 plain local files are split at line boundaries and parsed on several threads")
+    public Stream<CSVResult> csv(@Name("url") String url, @Name("config") Map<String, Object> config) {
+        return ProcedureStats.track("apoc.load.csv", () -> loadCsv(url, config));
+    }
+
+    private Stream<CSVResult> loadCsv(String url, Map<String, Object> config) {
+        CsvConfig csvConfig = new CsvConfig(config == null ? Collections.emptyMap() : config);
+        try {
+            File file = localFile(url);
+            boolean gzip = Util.isGzip(url, null);
+            Stream<CSVResult> result;
+            if (file != null && !gzip && csvConfig.parallel > 1) {
+                result = parallel(file, csvConfig);
+            } else {
+                InputStream in;
+                if (file != null) {
+                    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                    in = new MappedInputStream(channel, 0, channel.size()) {
+                        public void close() throws IOException { channel.close(); }
+                    };
+                    if (gzip) in = new GZIPInputStream(in, Util.BUFFER_SIZE);
+                } else {
+                    in = Util.openInputStream(url);
+                }
+                result = sequential(in, csvConfig);
+            }
+            if (csvConfig.skip > 0) result = result.skip(csvConfig.skip);
+            if (csvConfig.limit >= 0) result = result.limit(csvConfig.limit);
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read CSV from " + url, e);
+        }
+    }
+
+    public static class CSVResult {
+        public long lineNo;
+        public List<Object> list;
+        public Map<String, Object> map;
+
+        public CSVResult(long lineNo, List<Object> list, Map<String, Object> map) {
+            this.lineNo = lineNo;
+            this.list = list;
+            this.map = map;
+        }
+    }
+
+    static class CsvConfig {
+        final char separator;
+        final char quote;
+        final boolean header;
+        final long skip;
+        final long limit;
+        final int parallel;
+        final int chunkSize;
+        final Map<String, Meta.Types> types = new HashMap<>();
+
+        CsvConfig(Map<String, Object> config) {
+            separator = character(config.get("sep"), ',');
+            quote = character(config.get("quoteChar"), '"');
+            header = !Boolean.FALSE.equals(config.get("header"));
+            skip = number(config.get("skip"), 0);
+            limit = number(config.get("limit"), -1);
+            parallel = (int) number(config.get("parallel"), 1);
+            chunkSize = (int) number(config.get("chunkSize"), DEFAULT_CHUNK_SIZE);
+            Object types = config.get("types");
+            if (types instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) types).entrySet()) {
+                    this.types.put(entry.getKey().toString(), Meta.Types.valueOf(entry.getValue().toString().toUpperCase()));
+                }
+            }
+        }
+
+        private static char character(Object value, char defaultValue) {
+            if (value == null) return defaultValue;
+            String s = value.toString();
+            if (s.equalsIgnoreCase("TAB")) return '\t';
+            if (s.length() != 1) throw new IllegalArgumentException("Single character expected but was '" + s + "'");
+            return s.charAt(0);
+        }
+
+        private static long number(Object value, long defaultValue) {
+            return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+        }
+    }
+
+    /**
+     * Turns the raw fields of a record into a result with the configured column types.
+     */
+    static class RowMapper {
+        private final List<String> header;
+        private final Meta.Types[] types;
+
+        RowMapper(List<String> header, CsvConfig config) {
+            this.header = header;
+            int columns = header == null ? 0 : header.size();
+            if (header == null) {
+                for (String key : config.types.keySet()) columns = Math.max(columns, column(key) + 1);
+            }
+            this.types = new Meta.Types[columns];
+            for (int i = 0; i < columns; i++) {
+                types[i] = config.types.get(header == null ? String.valueOf(i) : header.get(i));
+            }
+        }
+
+        private static int column(String key) {
+            try {
+                int column = Integer.parseInt(key.trim());
+                if (column >= 0) return column;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Without a header the keys of the types config have to be column indexes starting at 0, but got '" + key + "'");
+        }
+
+        CSVResult map(long lineNo, List<String> fields) {
+            List<Object> list = new ArrayList<>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                list.add(convert(fields.get(i), i < types.length ? types[i] : null));
+            }
+            Map<String, Object> map;
+            if (header == null) {
+                map = Collections.emptyMap();
+            } else {
+                map = new LinkedHashMap<>(header.size() * 4 / 3 + 1);
+                for (int i = 0; i < header.size(); i++) {
+                    map.put(header.get(i), i < list.size() ? list.get(i) : null);
+                }
+            }
+            return new CSVResult(lineNo, list, map);
+        }
+
+        private Object convert(String value, Meta.Types type) {
+            if (type == null || type == Meta.Types.STRING) return value;
+            if (value.isEmpty()) return null;
+            switch (type) {
+                case INTEGER: return Long.parseLong(value.trim());
+                case FLOAT: return Double.parseDouble(value.trim());
+                case BOOLEAN: return Boolean.parseBoolean(value.trim());
+                default: throw new IllegalArgumentException("Unsupported column type " + type);
+            }
+        }
+    }
+
+    private Stream<CSVResult> sequential(InputStream in, CsvConfig config) throws IOException {
+        CsvParser parser = new CsvParser(in, config.separator, config.quote);
+        RowMapper mapper = new RowMapper(config.header ? parser.next() : null, config);
+        Iterator<CSVResult> it = new Iterator<CSVResult>() {
+            CSVResult next = fetch();
+
+            private CSVResult fetch() {
+                try {
+                    List<String> fields = parser.next();
+                    if (fields != null) return mapper.map(parser.getRecordLine(), fields);
+                    in.close();
+                    return null;
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading CSV", e);
+                }
+            }
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public CSVResult next() {
+                if (next == null) throw new NoSuchElementException();
+                CSVResult current = next;
+                next = fetch();
+                return current;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> { try { in.close(); } catch (IOException e) { /* ignore */ } });
+    }
+
+    private Stream<CSVResult> parallel(File file, CsvConfig config) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long size = channel.size();
+        CsvParser headerParser = new CsvParser(new MappedInputStream(channel, 0, size), config.separator, config.quote);
+        List<String> header = config.header ? headerParser.next() : null;
+        long dataStart = config.header ? headerParser.getPosition() : 0;
+        RowMapper mapper = new RowMapper(header, config);
+
+        List<long[]> chunks = chunks(channel, dataStart, size, config.chunkSize);
+        ChunkIterator it = new ChunkIterator(channel, size, chunks, config, mapper, headerParser.getLines());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(it::close);
+    }
+
+    /**
+     * Splits the byte range into chunks of about chunkSize, each chunk ends right after a line break.
+     */
+    static List<long[]> chunks(FileChannel channel, long start, long size, int chunkSize) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            while (end < size) {
+                buffer.clear();
+                int read = channel.read(buffer, end);
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline != -1) {
+                    end += newline + 1;
+                    break;
+                }
+                end += Math.max(read, 0);
+            }
+            chunks.add(new long[]{start, Math.min(end, size)});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static class ChunkResult {
+        final long start;
+        final List<CSVResult> rows;
+        final long lines;
+        final boolean endedInQuotes;
+
+        ChunkResult(long start, List<CSVResult> rows, long lines, boolean endedInQuotes) {
+            this.start = start;
+            this.rows = rows;
+            this.lines = lines;
+            this.endedInQuotes = endedInQuotes;
+        }
+    }
+
+    /**
+     * Keeps up to "parallel" chunks parsing ahead on the worker pool and emits their rows in file order.
+     * <p>
+     * A chunk that ends inside of a quoted field was split at a line break within that field, so it and the chunks after it
+     * are dropped and the rest of the file is parsed on the calling thread from the start of that chunk,
+     * which is a record boundary as all chunks before it ended outside of quotes.
+     */
+    private static class ChunkIterator implements Iterator<CSVResult> {
+        private final FileChannel channel;
+        private final long size;
+        private final Iterator<long[]> chunks;
+        private final CsvConfig config;
+        private final RowMapper mapper;
+        private final Deque<Future<ChunkResult>> pending = new ArrayDeque<>();
+        private Iterator<CSVResult> current = Collections.emptyIterator();
+        private long lineBase;
+        private boolean sequential;
+
+        ChunkIterator(FileChannel channel, long size, List<long[]> chunks, CsvConfig config, RowMapper mapper, long lineBase) {
+            this.channel = channel;
+            this.size = size;
+            this.chunks = chunks.iterator();
+            this.config = config;
+            this.mapper = mapper;
+            this.lineBase = lineBase;
+            fill();
+        }
+
+        private void fill() {
+            while (!sequential && pending.size() < config.parallel && chunks.hasNext()) {
+                long[] chunk = chunks.next();
+                pending.add(Pools.DEFAULT.submit(() -> parse(chunk[0], chunk[1])));
+            }
+        }
+
+        private ChunkResult parse(long start, long end) throws IOException {
+            CsvParser parser = new CsvParser(new MappedInputStream(channel, start, end), config.separator, config.quote);
+            List<CSVResult> rows = new ArrayList<>();
+            List<String> fields;
+            while ((fields = parser.next()) != null) {
+                rows.add(mapper.map(parser.getRecordLine(), fields));
+            }
+            return new ChunkResult(start, rows, parser.getLines(), parser.endedInQuotes());
+        }
+
+        /**
+         * @return the rows from the start offset to the end of the file, parsed while they are read
+         */
+        private Iterator<CSVResult> rest(long start) {
+            CsvParser parser = new CsvParser(new MappedInputStream(channel, start, size), config.separator, config.quote);
+            long base = lineBase;
+            return new Iterator<CSVResult>() {
+                CSVResult next = fetch();
+
+                private CSVResult fetch() {
+                    try {
+                        List<String> fields = parser.next();
+                        if (fields == null) return null;
+                        CSVResult row = mapper.map(parser.getRecordLine(), fields);
+                        row.lineNo += base;
+                        return row;
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error reading CSV", e);
+                    }
+                }
+
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                public CSVResult next() {
+                    if (next == null) throw new NoSuchElementException();
+                    CSVResult current = next;
+                    next = fetch();
+                    return current;
+                }
+            };
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (pending.isEmpty()) {
+                    close();
+                    return false;
+                }
+                try {
+                    ChunkResult result = pending.poll().get();
+                    if (result.endedInQuotes) {
+                        sequential = true;
+                        cancel();
+                        current = rest(result.start);
+                        continue;
+                    }
+                    for (CSVResult row : result.rows) {
+                        row.lineNo += lineBase;
+                    }
+                    lineBase += result.lines;
+                    current = result.rows.iterator();
+                } catch (InterruptedException | ExecutionException e) {
+                    close();
+                    throw new RuntimeException("Error reading CSV", e);
+                }
+                fill();
+            }
+            return true;
+        }
+
+        @Override
+        public CSVResult next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        private void cancel() {
+            for (Future<ChunkResult> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+
+        void close() {
+            cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * @return the file for "file:" urls and plain paths, null for other urls
+     */
+    static File localFile(String url) {
+        if (url.startsWith("file:")) {
+            try {
+                return new File(new URI(url).getSchemeSpecificPart());
+            } catch (URISyntaxException e) {
+                return new File(url.substring("file:".length()));
+            }
+        }
+        if (url.matches("^[a-zA-Z][a-zA-Z0-9+.-]+:.*")) return null;
+        return new File(url);
+    }
+}
@@ -1,25 +1,17 @@
 package apoc.load;
 
 import apoc.Description;
-import apoc.convert.Json;
-import apoc.result.ListResult;
+import apoc.monitor.ProcedureStats;
 import apoc.result.MapResult;
 import apoc.result.ObjectResult;
-import apoc.result.StringResult;
-import org.codehaus.jackson.map.ObjectMapper;
+import apoc.util.JsonUtil;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
-import org.neo4j.procedure.PerformsWrites;
 import org.neo4j.procedure.Procedure;
 
-import java.io.IOException;
-import java.net.URL;
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 public class LoadJson {
 
@@ -28,30 +20,25 @@ public class LoadJson {
     @Procedure
     @Description("apoc.load.jsonArray('url') YIELD value - load array from JSON URL (e.g. web-api) to import JSON as stream of values")
     public Stream<ObjectResult> jsonArray(@Name("url") String url) {
-        try {
-            Object value = Json.OBJECT_MAPPER.readValue(new URL(url), Object.class);
-            if (value instanceof List) {
-                return ((List)value).stream().map(ObjectResult::new);
-            }
-            throw new RuntimeException("Incompatible Type "+(value==null ? "null" : value.getClass()));
-        } catch (IOException e) {
-            throw new RuntimeException("Can't read url " + url + " as json", e);
-        }
+        return ProcedureStats.track("apoc.load.jsonArray", () -> JsonUtil.stream(url, null, true).map(ObjectResult::new));
     }
+
     @Procedure
     @Description("apoc.load.json('http://example.com/map.json') YIELD value as person CREATE (p:Person) SET p = person - load from JSON URL (e.g. web-api) to import JSON as stream of values if the JSON was an array or a single value if it was a map")
     public Stream<MapResult> json(@Name("url") String url) {
-        try {
-            Object value = Json.OBJECT_MAPPER.readValue(new URL(url), Object.class);
-            if (value instanceof Map) {
-                return Stream.of(new MapResult((Map)value));
-            }
-            if (value instanceof List) {
-                return ((List)value).stream().map( (v) -> new MapResult((Map)v));
-            }
-            throw new RuntimeException("Incompatible Type "+(value==null ? "null" : value.getClass()));
-        } catch (IOException e) {
-            throw new RuntimeException("Can't read url " + url + " as json", e);
+        return ProcedureStats.track("apoc.load.json", () -> JsonUtil.stream(url, null, false).map(LoadJson::toMapResult));
+    }
+
+    @Procedure
+    @Description("apoc.load.jsonPath('url','$.data.items') YIELD value - streams the values at the given path of each JSON document (e.g. newline delimited JSON), arrays are unwound into one value per element, '.gz' files are decompressed")
+    public Stream<ObjectResult> jsonPath(@Name("url") String url, @Name("path") String path) {
+        return ProcedureStats.track("apoc.load.jsonPath", () -> JsonUtil.stream(url, path, false).map(ObjectResult::new));
+    }
+
+    private static MapResult toMapResult(Object value) {
+        if (value instanceof Map) {
+            return new MapResult((Map) value);
         }
+        throw new RuntimeException("Incompatible Type " + (value == null ? "null" : value.getClass()));
     }
 }
@@ -1,7 +1,9 @@
 package apoc.load;
 
 import apoc.Description;
+import apoc.monitor.ProcedureStats;
 import apoc.result.MapResult;
+import apoc.util.Util;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
@@ -12,13 +14,18 @@ import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
-import java.net.URL;
-import java.net.URLConnection;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Xml {
 
@@ -29,9 +36,12 @@ public class Xml {
     @Procedure
     @Description("apoc.load.xml('http://example.com/test.xml') YIELD value as doc CREATE (p:Person) SET p.name = doc.name load from XML URL (e.g. web-api) to import XML as single nested map with attributes and _type, _text and _childrenx fields.")
     public Stream<MapResult> xml(@Name("url") String url) {
+        return ProcedureStats.track("apoc.load.xml", () -> loadXml(url));
+    }
+
+    private Stream<MapResult> loadXml(String url) {
         try {
-            URLConnection urlConnection = new URL(url).openConnection();
-            XMLStreamReader reader = FACTORY.createXMLStreamReader(urlConnection.getInputStream());
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(Util.openInputStream(url));
             if (reader.nextTag()==XMLStreamConstants.START_ELEMENT) {
                 return Stream.of(new MapResult(handleElement(reader)));
             }
@@ -41,7 +51,24 @@ public class Xml {
         }
     }
 
-    private Map<String, Object> handleElement(XMLStreamReader reader) throws XMLStreamException {
+    @Procedure
+    @Description("apoc.load.xmlElements('http://example.com/dump.xml','page' or '/mediawiki/page') YIELD value as page - streams each matching element (by name, relative or absolute path, * matches any name) as its own nested map, only the current element is kept in memory")
+    public Stream<MapResult> xmlElements(@Name("url") String url, @Name("path") String path) {
+        return ProcedureStats.track("apoc.load.xmlElements", () -> loadXmlElements(url, path));
+    }
+
+    private Stream<MapResult> loadXmlElements(String url, String path) {
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(Util.openInputStream(url));
+            ElementIterator iterator = new ElementIterator(reader, path);
+            Spliterator<Map<String, Object>> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+            return StreamSupport.stream(spliterator, false).onClose(iterator::close).map(MapResult::new);
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Can't read url " + url + " as XML", e);
+        }
+    }
+
+    private static Map<String, Object> handleElement(XMLStreamReader reader) throws XMLStreamException {
         LinkedHashMap<String, Object> row = null;
         String element = null;
         if (reader.isStartElement()) {
@@ -58,7 +85,7 @@ public class Xml {
                 next(reader);
             }
             if (reader.isStartElement()) {
-                List<Map<String, Object>> children = new ArrayList<>(100);
+                List<Map<String, Object>> children = new ArrayList<>();
                 do {
                     Map<String, Object> child = handleElement(reader);
                     if (child != null && !child.isEmpty()) {
@@ -74,9 +101,84 @@ public class Xml {
         throw new IllegalStateException("Incorrect end-element state "+reader.getEventType()+" after "+element);
     }
 
-    private int next(XMLStreamReader reader) throws XMLStreamException {
+    private static int next(XMLStreamReader reader) throws XMLStreamException {
         reader.next();
         while (reader.isWhiteSpace()) reader.next();
         return reader.getEventType();
     }
+
+    /**
+     * Walks the document and turns each element matching the path into a nested map,
+     * the elements outside of matches are only tracked by name on a stack.
+     */
+    private static class ElementIterator implements Iterator<Map<String, Object>> {
+        private final XMLStreamReader reader;
+        private final String[] path;
+        private final boolean absolute;
+        private final Deque<String> stack = new ArrayDeque<>();
+        private Map<String, Object> next;
+
+        ElementIterator(XMLStreamReader reader, String path) {
+            this.reader = reader;
+            String p = path == null ? "" : path.trim();
+            this.absolute = p.startsWith("/");
+            this.path = p.replaceAll("^/+|/+$", "").split("/+");
+            if (this.path.length == 0 || this.path[0].isEmpty()) throw new IllegalArgumentException("Element name or path required");
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = advance();
+            return next != null;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Map<String, Object> current = next;
+            next = null;
+            return current;
+        }
+
+        private Map<String, Object> advance() {
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        stack.addLast(reader.getLocalName());
+                        if (matches()) {
+                            stack.removeLast();
+                            return handleElement(reader);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        stack.pollLast();
+                    }
+                }
+                close();
+                return null;
+            } catch (XMLStreamException e) {
+                close();
+                throw new RuntimeException("Can't read XML " + e.getMessage(), e);
+            }
+        }
+
+        private boolean matches() {
+            int depth = stack.size();
+            if (depth < path.length || absolute && depth != path.length) return false;
+            Iterator<String> it = stack.descendingIterator();
+            for (int i = path.length - 1; i >= 0; i--) {
+                String name = it.next();
+                if (!path[i].equals("*") && !path[i].equals(name)) return false;
+            }
+            return true;
+        }
+
+        void close() {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // ignore
+            }
+        }
+    }
 }
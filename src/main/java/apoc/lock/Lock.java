@@ -1,60 +1,222 @@
 package apoc.lock;
 
 import apoc.Description;
-import apoc.result.*;
 import org.neo4j.graphdb.*;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.impl.api.KernelStatement;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.PerformsWrites;
 import org.neo4j.procedure.Procedure;
 
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Locks are taken in the calling transaction, ordered by id so that concurrent callers can't deadlock each other,
+ * and are released when the transaction finishes.
+ */
 public class Lock {
 
+    /**
+     * Named locks are mapped onto a fixed number of stripes of the kernel lock manager,
+     * different names may share a stripe and then serialize each other.
+     */
+    public static final int NAMED_LOCK_STRIPES = 1 << 14;
 
     @Context
-    public GraphDatabaseService db;
+    public KernelTransaction tx;
 
     @Procedure
     @PerformsWrites
-    @Description("apoc.lock.all([nodes],[relationships]) acquires a write lock on the given nodes and relationships")
+    @Description("apoc.lock.all([nodes],[relationships]) acquires a write lock on the given nodes and relationships, ordered by id")
     public void all(@Name("nodes") List<Node> nodes, @Name("rels") List<Relationship> rels) {
-        try (Transaction tx = db.beginTx()) {
-            for (Node node : nodes) {
-                tx.acquireWriteLock(node);
-            }
-            for (Relationship rel : rels) {
-                tx.acquireReadLock(rel);
-            }
-            tx.success();
-        }
+        lock(nodes, rels, true);
     }
+
     @Procedure
     @PerformsWrites
-    @Description("apoc.lock.nodes([nodes]) acquires a write lock on the given nodes")
+    @Description("apoc.lock.nodes([nodes]) acquires a write lock on the given nodes, ordered by id")
     public void nodes(@Name("nodes") List<Node> nodes) {
-        try (Transaction tx = db.beginTx()) {
-            for (Node node : nodes) {
-                tx.acquireWriteLock(node);
-            }
-            tx.success();
-        }
+        lock(nodes, null, true);
     }
+
     @Procedure
     @PerformsWrites
-    @Description("apoc.lock.rels([relationships]) acquires a write lock on the given relationship")
+    @Description("apoc.lock.rels([relationships]) acquires a write lock on the given relationship, ordered by id")
     public void rels(@Name("rels") List<Relationship> rels) {
-        try (Transaction tx = db.beginTx()) {
-            for (Relationship rel : rels) {
-                tx.acquireWriteLock(rel);
+        lock(null, rels, true);
+    }
+
+    @Procedure("apoc.lock.read.all")
+    @Description("apoc.lock.read.all([nodes],[relationships]) acquires a read lock on the given nodes and relationships, ordered by id")
+    public void readAll(@Name("nodes") List<Node> nodes, @Name("rels") List<Relationship> rels) {
+        lock(nodes, rels, false);
+    }
+
+    @Procedure("apoc.lock.read.nodes")
+    @Description("apoc.lock.read.nodes([nodes]) acquires a read lock on the given nodes, ordered by id")
+    public void readNodes(@Name("nodes") List<Node> nodes) {
+        lock(nodes, null, false);
+    }
+
+    @Procedure("apoc.lock.read.rels")
+    @Description("apoc.lock.read.rels([relationships]) acquires a read lock on the given relationships, ordered by id")
+    public void readRels(@Name("rels") List<Relationship> rels) {
+        lock(null, rels, false);
+    }
+
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.lock.tryAll([nodes],[relationships],{timeout:1000,write:true}) YIELD locked, nodes, rels - tries to lock the given nodes and relationships ordered by id within the timeout in ms, returns the ones that could not be locked, acquired locks are kept")
+    public Stream<TryLockResult> tryAll(@Name("nodes") List<Node> nodes, @Name("rels") List<Relationship> rels, @Name("config") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        long timeout = config.get("timeout") instanceof Number ? ((Number) config.get("timeout")).longValue() : 1000;
+        boolean write = !Boolean.FALSE.equals(config.get("write"));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try (Statement statement = tx.acquireStatement()) {
+            Locks.Client locks = ((KernelStatement) statement).locks();
+            List<Node> failedNodes = tryLock(locks, ResourceTypes.NODE, sorted(nodes, Node::getId), Node::getId, write, deadline);
+            List<Relationship> failedRels = tryLock(locks, ResourceTypes.RELATIONSHIP, sorted(rels, Relationship::getId), Relationship::getId, write, deadline);
+            return Stream.of(new TryLockResult(failedNodes.isEmpty() && failedRels.isEmpty(), failedNodes, failedRels));
+        }
+    }
+
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.lock.named(['account:42',...]) acquires exclusive application locks on the given names until the transaction finishes, without touching the store")
+    public void named(@Name("names") List<String> names) {
+        lockNamed(names, true);
+    }
+
+    @Procedure("apoc.lock.read.named")
+    @Description("apoc.lock.read.named(['account:42',...]) acquires shared application locks on the given names until the transaction finishes")
+    public void readNamed(@Name("names") List<String> names) {
+        lockNamed(names, false);
+    }
+
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.lock.tryNamed(['account:42',...],{timeout:1000,write:true}) YIELD locked, names - tries to lock the given names within the timeout in ms, returns the names that could not be locked, acquired locks are kept")
+    public Stream<TryNamedLockResult> tryNamed(@Name("names") List<String> names, @Name("config") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        long timeout = config.get("timeout") instanceof Number ? ((Number) config.get("timeout")).longValue() : 1000;
+        boolean write = !Boolean.FALSE.equals(config.get("write"));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try (Statement statement = tx.acquireStatement()) {
+            Locks.Client locks = ((KernelStatement) statement).locks();
+            Map<Long, List<String>> stripes = stripes(names);
+            List<Long> failedStripes = tryLock(locks, ResourceTypes.LEGACY_INDEX, new ArrayList<>(stripes.keySet()), Long::longValue, write, deadline);
+            List<String> failed = failedStripes.stream().flatMap(stripe -> stripes.get(stripe).stream()).collect(Collectors.toList());
+            return Stream.of(new TryNamedLockResult(failed.isEmpty(), failed));
+        }
+    }
+
+    public static class TryNamedLockResult {
+        public final boolean locked;
+        public final List<String> names;
+
+        public TryNamedLockResult(boolean locked, List<String> names) {
+            this.locked = locked;
+            this.names = names;
+        }
+    }
+
+    public static class TryLockResult {
+        public final boolean locked;
+        public final List<Node> nodes;
+        public final List<Relationship> rels;
+
+        public TryLockResult(boolean locked, List<Node> nodes, List<Relationship> rels) {
+            this.locked = locked;
+            this.nodes = nodes;
+            this.rels = rels;
+        }
+    }
+
+    private void lock(List<Node> nodes, List<Relationship> rels, boolean write) {
+        try (Statement statement = tx.acquireStatement()) {
+            ReadOperations ops = statement.readOperations();
+            for (long id : ids(nodes, Node::getId)) {
+                if (write) ops.acquireExclusive(ResourceTypes.NODE, id);
+                else ops.acquireShared(ResourceTypes.NODE, id);
+            }
+            for (long id : ids(rels, Relationship::getId)) {
+                if (write) ops.acquireExclusive(ResourceTypes.RELATIONSHIP, id);
+                else ops.acquireShared(ResourceTypes.RELATIONSHIP, id);
+            }
+        }
+    }
+
+    private void lockNamed(List<String> names, boolean write) {
+        try (Statement statement = tx.acquireStatement()) {
+            ReadOperations ops = statement.readOperations();
+            for (long resource : stripes(names).keySet()) {
+                if (write) ops.acquireExclusive(ResourceTypes.LEGACY_INDEX, resource);
+                else ops.acquireShared(ResourceTypes.LEGACY_INDEX, resource);
+            }
+        }
+    }
+
+    /**
+     * @return the names grouped by the resource id of their stripe, ordered by resource id
+     */
+    private static Map<Long, List<String>> stripes(List<String> names) {
+        Map<Long, List<String>> stripes = new TreeMap<>();
+        if (names == null) return stripes;
+        for (String name : names) {
+            long resource = stripeResource(name);
+            List<String> group = stripes.computeIfAbsent(resource, k -> new ArrayList<>());
+            if (!group.contains(name)) group.add(name);
+        }
+        return stripes;
+    }
+
+    static long stripeResource(String name) {
+        int hash = name.hashCode();
+        int stripe = (hash ^ (hash >>> 16)) & (NAMED_LOCK_STRIPES - 1);
+        return ResourceTypes.legacyIndexResourceId("apoc.lock.named", String.valueOf(stripe));
+    }
+
+    /**
+     * Polls for each lock in order until the deadline, after the deadline each remaining lock is still tried once.
+     */
+    private static <T> List<T> tryLock(Locks.Client locks, ResourceTypes type, List<T> entities, ToLongFunction<T> id, boolean write, long deadline) {
+        List<T> failed = new ArrayList<>();
+        for (T entity : entities) {
+            long pause = 1;
+            while (!(write ? locks.tryExclusiveLock(type, id.applyAsLong(entity)) : locks.trySharedLock(type, id.applyAsLong(entity)))) {
+                if (System.nanoTime() >= deadline) {
+                    failed.add(entity);
+                    break;
+                }
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for locks", e);
+                }
+                pause = Math.min(pause * 2, 50);
             }
-            tx.success();
         }
+        return failed;
+    }
+
+    private static <T> long[] ids(List<T> entities, ToLongFunction<T> id) {
+        if (entities == null) return new long[0];
+        return entities.stream().mapToLong(id).sorted().distinct().toArray();
+    }
+
+    private static <T> List<T> sorted(List<T> entities, ToLongFunction<T> id) {
+        if (entities == null) return Collections.emptyList();
+        return new ArrayList<>(entities.stream().collect(Collectors.toMap(id::applyAsLong, Function.identity(), (a, b) -> a, TreeMap::new)).values());
     }
 }
@@ -0,0 +1,112 @@
+package apoc.meta;
+
+import java.lang.reflect.Array;
+
+/**
+ * Approximate count of distinct values in <code>2^precision</code> bytes, whatever the number of values,
+ * with a standard error of about <code>1.04 / sqrt(2^precision)</code>, 1.6% for the default precision of 12.
+ * <p>
+ * Values are hashed to 64 bits, the first <code>precision</code> bits choose a register that keeps the longest
+ * run of leading zeros seen in the remaining bits. Sketches of the same precision can be merged.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) throw new IllegalArgumentException("Precision must be between 4 and 18 but was " + precision);
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(Object value) {
+        addHash(hash(value));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        long rest = hash << precision;
+        int rank = rest == 0 ? 64 - precision + 1 : Long.numberOfLeadingZeros(rest) + 1;
+        if (rank > registers[index]) registers[index] = (byte) rank;
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) throw new IllegalArgumentException("Can't merge sketches of precision " + precision + " and " + other.precision);
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+        return this;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        // few values: most registers are still empty, counting them is more accurate
+        if (estimate <= 2.5 * m && zeros > 0) estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Equal values hash equally regardless of their boxed type, so 1 and 1L count once, arrays hash by their elements.
+     */
+    static long hash(Object value) {
+        if (value == null) return mix(0);
+        if (value instanceof String) {
+            String s = (String) value;
+            long h = 1125899906842597L;
+            for (int i = 0; i < s.length(); i++) h = 31 * h + s.charAt(i);
+            return mix(h);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return d == Math.rint(d) && !Double.isInfinite(d) ? mix((long) d) : mix(Double.doubleToLongBits(d));
+        }
+        if (value instanceof Number) return mix(((Number) value).longValue());
+        if (value instanceof Boolean) return mix((Boolean) value ? 1231 : 1237);
+        if (value.getClass().isArray()) {
+            long h = 17;
+            for (int i = 0, length = Array.getLength(value); i < length; i++) h = 31 * h + hash(Array.get(value, i));
+            return mix(h);
+        }
+        return mix(value.hashCode());
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreads every input bit over all output bits.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + "}";
+    }
+}
@@ -1,17 +1,21 @@
 package apoc.meta;
 
 import apoc.Description;
+import apoc.Pools;
 import apoc.result.*;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import static java.util.Arrays.asList;
@@ -28,6 +32,9 @@ public class Meta {
     @Context
     public KernelTransaction kernelTx;
 
+    @Context
+    public GraphDatabaseAPI api;
+
     public enum Types {
         INTEGER,FLOAT,STRING,BOOLEAN,RELATIONSHIP,NODE,PATH,NULL,UNKNOWN,MAP,LIST;
 
@@ -37,12 +44,13 @@ public class Meta {
             if (type.isArray()) {
                 type = type.getComponentType();
             }
-            if (Number.class.isAssignableFrom(type)) {
+            if (type == Boolean.class || type == boolean.class) return BOOLEAN;
+            if (type == String.class || type == Character.class || type == char.class) return STRING;
+            // primitive arrays like long[] or double[] are stored for lists of numbers
+            if (Number.class.isAssignableFrom(type) || type.isPrimitive()) {
                 return double.class.isAssignableFrom(type) || Double.class.isAssignableFrom(type) ||
                        Float.class.isAssignableFrom(type) || float.class.isAssignableFrom(type) ? FLOAT : INTEGER;
             }
-            if (type == Boolean.class || type == boolean.class) return BOOLEAN;
-            if (value instanceof String) return STRING;
             if (Map.class.isAssignableFrom(type)) return MAP;
             if (Node.class.isAssignableFrom(type)) return NODE;
             if (Relationship.class.isAssignableFrom(type)) return RELATIONSHIP;
@@ -241,39 +249,182 @@ public class Meta {
     }
 
     @Procedure
-    @Description("apoc.meta.graph - examines the full graph to create the meta-graph")
+    @Description("apoc.meta.graph - the meta-graph with the number of nodes per label and relationships per pattern and their property keys, maintained as transactions commit, examines the full graph if it isn't")
     public Stream<GraphResult> graph() {
-        Map<String,Node> labels = new TreeMap<>();
-        Map<List<String>,Relationship> rels = new HashMap<>();
-        for (Relationship rel : db.getAllRelationships()) {
-            addLabels(labels,rel.getStartNode());
-            addLabels(labels,rel.getEndNode());
-            addRel(rels,labels, rel);
-        }
-        return Stream.of(new GraphResult(new ArrayList<>(labels.values()), new ArrayList<>(rels.values())));
+        MetaStats stats = MetaStats.of(db);
+        return Stream.of(graph(stats != null ? stats.build() : MetaStats.count(db)));
     }
 
+    private GraphResult graph(MetaStats stats) {
+        Map<String, Node> labels = new TreeMap<>();
+        MetaStats.counts(stats.labels, Comparator.<String>naturalOrder()).forEach((name, count) -> {
+            Node vNode = mergeMetaNode(Label.label(name), labels, false);
+            vNode.setProperty("count", count);
+            vNode.setProperty("properties", MetaStats.properties(stats.labelProperties, name));
+        });
+        List<Relationship> rels = new ArrayList<>();
+        Comparator<List<String>> byPattern = Comparator.comparing((List<String> p) -> p.get(0)).thenComparing(p -> p.get(1)).thenComparing(p -> p.get(2));
+        MetaStats.counts(stats.patterns, byPattern).forEach((pattern, count) -> {
+            Node start = mergeMetaNode(Label.label(pattern.get(0)), labels, false);
+            Node end = mergeMetaNode(Label.label(pattern.get(2)), labels, false);
+            String typeName = pattern.get(1);
+            Map<String, Object> props = new LinkedHashMap<>();
+            props.put("type", typeName);
+            props.put("count", count);
+            props.put("properties", MetaStats.properties(stats.typeProperties, typeName));
+            rels.add(new VirtualRelationship(start, end, RelationshipType.withName(typeName)).withProperties(props));
+        });
+        return new GraphResult(new ArrayList<>(labels.values()), rels);
+    }
 
     @Procedure
     @Description("apoc.meta.graphSample(sampleSize) - examines a sample graph to create the meta-graph, default sampleSize is 100")
     public Stream<GraphResult> graphSample(@Name("sample") Long sampleSize ) {
         Map<String, Node> labels = new TreeMap<>();
         Map<List<String>,Relationship> rels = new HashMap<>();
+        Map<String, Set<String>> labelKeys = new HashMap<>();
+        Map<String, Set<String>> typeKeys = new HashMap<>();
         Sampler sampler = new Sampler() {
             public void sample(Label label, int count, Node node) {
                 mergeMetaNode(label, labels,true);
+                addKeys(labelKeys, label.name(), node);
             }
             public void sample(Label label, int count, Node node, RelationshipType type, Direction direction, int degree, Relationship rel) {
                 if (rel!=null) {
                     addRel(rels, labels, rel);
+                    addKeys(typeKeys, type.name(), rel);
                 }
             }
         };
         long sample = sampleSize == null || sampleSize < 100 ? SAMPLE : sampleSize;
         sample(db,sampler, (int) sample);
+        // same fields as apoc.meta.graph
+        for (Node vNode : labels.values()) {
+            if (!vNode.hasProperty("count")) vNode.setProperty("count", 0L);
+            vNode.setProperty("properties", sorted(labelKeys.get(vNode.getProperty("name"))));
+        }
+        for (Relationship vRel : rels.values()) {
+            vRel.setProperty("properties", sorted(typeKeys.get(vRel.getProperty("type"))));
+        }
         return Stream.of(new GraphResult(new ArrayList<>(labels.values()), new ArrayList<>(rels.values())));
     }
 
+    private static void addKeys(Map<String, Set<String>> keys, String name, PropertyContainer pc) {
+        Set<String> set = keys.computeIfAbsent(name, k -> new HashSet<>());
+        for (String key : pc.getPropertyKeys()) set.add(key);
+    }
+
+    private static List<String> sorted(Set<String> keys) {
+        if (keys == null) return Collections.emptyList();
+        List<String> result = new ArrayList<>(keys);
+        Collections.sort(result);
+        return result;
+    }
+
+    @Procedure
+    @Description("apoc.meta.profile({labels:['Label'], sample:1000, values:10, batchSize:1000}) - profiles the properties of a uniform sample of the nodes per label in parallel: counts per type, null ratio, min, max, estimated distinct values and a sample of the values, sample -1 examines all nodes")
+    public Stream<PropertyProfileResult> profile(@Name("config") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        long sample = config.get("sample") instanceof Number ? ((Number) config.get("sample")).longValue() : PROFILE_SAMPLE;
+        int values = config.get("values") instanceof Number ? ((Number) config.get("values")).intValue() : PROFILE_VALUES;
+        int batchSize = config.get("batchSize") instanceof Number ? Math.max(1, ((Number) config.get("batchSize")).intValue()) : PROFILE_BATCH_SIZE;
+        List<String> labelNames = new ArrayList<>();
+        if (config.get("labels") instanceof List) {
+            for (Object label : (List) config.get("labels")) labelNames.add(label.toString());
+        } else {
+            for (Label label : db.getAllLabelsInUse()) labelNames.add(label.name());
+            Collections.sort(labelNames);
+        }
+        List<PropertyProfileResult> result = new ArrayList<>();
+        for (String labelName : labelNames) {
+            result.addAll(profile(Label.label(labelName), sample, values, batchSize));
+        }
+        return result.stream();
+    }
+
+    static final long PROFILE_SAMPLE = 1000;
+    static final int PROFILE_VALUES = 10;
+    static final int PROFILE_BATCH_SIZE = 1000;
+
+    /**
+     * Picks each node of the label with the probability sample / number of nodes, known from the counts store,
+     * and profiles the picked nodes in batches on the worker pool, at most two batches per worker are pending.
+     */
+    private List<PropertyProfileResult> profile(Label label, long sample, int values, int batchSize) {
+        long nodes;
+        try (Result count = db.execute("MATCH (n:`" + label.name().replace("`", "``") + "`) RETURN count(*) AS count")) {
+            nodes = (long) count.next().get("count");
+        }
+        double probability = sample < 0 || sample >= nodes ? 1 : (double) sample / nodes;
+        Random random = new Random();
+        Map<String, PropertyProfile> profiles = new TreeMap<>();
+        long sampled = 0;
+        Deque<Future<Map<String, PropertyProfile>>> pending = new ArrayDeque<>();
+        int maxPending = 2 * Runtime.getRuntime().availableProcessors();
+        try (ResourceIterator<Node> it = db.findNodes(label)) {
+            long[] batch = new long[batchSize];
+            int size = 0;
+            while (it.hasNext()) {
+                Node node = it.next();
+                if (probability < 1 && random.nextDouble() >= probability) continue;
+                batch[size++] = node.getId();
+                sampled++;
+                if (size == batchSize) {
+                    long[] ids = batch.clone();
+                    pending.add(Pools.DEFAULT.submit(() -> profileBatch(ids, values)));
+                    size = 0;
+                    if (pending.size() >= maxPending) merge(profiles, pending.poll(), label);
+                }
+            }
+            if (size > 0) {
+                long[] ids = Arrays.copyOf(batch, size);
+                pending.add(Pools.DEFAULT.submit(() -> profileBatch(ids, values)));
+            }
+            while (!pending.isEmpty()) merge(profiles, pending.poll(), label);
+        } catch (RuntimeException e) {
+            pending.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        List<PropertyProfileResult> result = new ArrayList<>(profiles.size());
+        for (Map.Entry<String, PropertyProfile> entry : profiles.entrySet()) {
+            result.add(entry.getValue().result(label.name(), entry.getKey(), nodes, sampled));
+        }
+        return result;
+    }
+
+    private Map<String, PropertyProfile> profileBatch(long[] ids, int values) {
+        Map<String, PropertyProfile> profiles = new HashMap<>();
+        Random random = new Random();
+        try (Transaction tx = api.beginTx()) {
+            for (long id : ids) {
+                Node node;
+                try {
+                    node = api.getNodeById(id);
+                } catch (NotFoundException e) {
+                    continue; // deleted since
+                }
+                for (Map.Entry<String, Object> property : node.getAllProperties().entrySet()) {
+                    profiles.computeIfAbsent(property.getKey(), k -> new PropertyProfile(values, random)).add(property.getValue());
+                }
+            }
+            tx.success();
+        }
+        return profiles;
+    }
+
+    private void merge(Map<String, PropertyProfile> profiles, Future<Map<String, PropertyProfile>> future, Label label) {
+        try {
+            future.get().forEach((property, profile) -> {
+                PropertyProfile total = profiles.get(property);
+                if (total == null) profiles.put(property, profile);
+                else total.merge(profile);
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() instanceof RuntimeException ? e.getCause() : e;
+            throw new RuntimeException("Error profiling nodes of " + label.name() + ": " + cause.getMessage(), cause);
+        }
+    }
+
     private Node mergeMetaNode(Label label, Map<String, Node> labels, boolean increment) {
         String name = label.name();
         Node vNode = labels.get(name);
@@ -281,7 +432,7 @@ public class Meta {
             vNode = new VirtualNode(new Label[] {label,META[0]}, Collections.singletonMap("name", name),db);
             labels.put(name, vNode);
         }
-        if (increment) vNode.setProperty("count",((int)vNode.getProperty("count",0))+1);
+        if (increment) vNode.setProperty("count",((long)vNode.getProperty("count",0L))+1);
         return vNode;
     }
 
@@ -299,17 +450,11 @@ public class Meta {
                     vRel = new VirtualRelationship(nodeA,nodeB,rel.getType()).withProperties(singletonMap("type",typeName));
                     rels.put(key,vRel);
                 }
-                vRel.setProperty("count",((int)vRel.getProperty("count",0))+1);
+                vRel.setProperty("count",((long)vRel.getProperty("count",0L))+1);
             }
         }
     }
 
-    private void addLabels(Map<String, Node> labels, Node node) {
-        for (Label label : node.getLabels()) {
-            mergeMetaNode(label, labels,true);
-        }
-    }
-
     static class RelInfo {
         final Set<String> properties = new HashSet<>();
         final NodeInfo from,to;
@@ -0,0 +1,352 @@
+package apoc.meta;
+
+import apoc.ApocConfiguration;
+import apoc.Pools;
+import org.neo4j.graphdb.*;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Keeps the meta-graph of a database up to date as transactions commit: the number of nodes per label,
+ * of relationships per type and per <code>(start label, type, end label)</code> pattern and how many nodes of a label
+ * or relationships of a type have each property key.
+ * <p>
+ * The counts are built by one scan of the graph when they are first asked for, afterwards each commit adds
+ * the difference it makes, computed from the transaction data before it commits.
+ * Commits wait while the scan runs so none of them is counted twice or missed.
+ * Disabled with <code>apoc.meta.graph.maintain=false</code>.
+ */
+public class MetaStats implements TransactionEventHandler<MetaStats.Delta> {
+
+    private static final Map<String, MetaStats> stats = new ConcurrentHashMap<>();
+
+    private final GraphDatabaseAPI db;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean built;
+
+    final Map<String, LongAdder> labels = new ConcurrentHashMap<>();
+    final Map<String, LongAdder> types = new ConcurrentHashMap<>();
+    /** [start label, type, end label] */
+    final Map<List<String>, LongAdder> patterns = new ConcurrentHashMap<>();
+    final Map<String, Map<String, LongAdder>> labelProperties = new ConcurrentHashMap<>();
+    final Map<String, Map<String, LongAdder>> typeProperties = new ConcurrentHashMap<>();
+
+    MetaStats(GraphDatabaseAPI db) {
+        this.db = db;
+    }
+
+    /**
+     * @return the maintained meta-graph of the database or null if it isn't maintained
+     */
+    public static MetaStats of(GraphDatabaseService db) {
+        if (!(db instanceof GraphDatabaseAPI)) return null;
+        MetaStats metaStats = stats.get(key(((GraphDatabaseAPI) db).getStoreDir()));
+        // impermanent databases share their store dir
+        return metaStats != null && metaStats.db == db ? metaStats : null;
+    }
+
+    public static MetaStats start(GraphDatabaseAPI db) {
+        if (!Boolean.parseBoolean(ApocConfiguration.get("meta.graph.maintain", "true"))) return null;
+        MetaStats metaStats = new MetaStats(db);
+        db.registerTransactionEventHandler(metaStats);
+        stats.put(key(db.getStoreDir()), metaStats);
+        return metaStats;
+    }
+
+    public void stop() {
+        stats.remove(key(db.getStoreDir()), this);
+        db.unregisterTransactionEventHandler(this);
+    }
+
+    /**
+     * Scans the graph the first time, in a transaction of its own so that it sees only committed data.
+     */
+    public MetaStats build() {
+        if (built) return this;
+        try {
+            Pools.DEFAULT.submit(this::scan).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building the meta-graph", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error building the meta-graph", e.getCause());
+        }
+        return this;
+    }
+
+    private void scan() {
+        lock.writeLock().lock();
+        try {
+            if (built) return;
+            try (Transaction tx = db.beginTx()) {
+                apply(delta(db));
+                tx.success();
+            }
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return counts of the graph as the current transaction sees it, that aren't maintained
+     */
+    public static MetaStats count(GraphDatabaseService db) {
+        MetaStats stats = new MetaStats(null);
+        stats.apply(delta(db));
+        stats.built = true;
+        return stats;
+    }
+
+    private static Delta delta(GraphDatabaseService db) {
+        Delta delta = new Delta();
+        for (Node node : db.getAllNodes()) {
+            delta.node(labels(node), node.getPropertyKeys(), 1);
+        }
+        for (Relationship rel : db.getAllRelationships()) {
+            delta.relationship(rel.getType().name(), labels(rel.getStartNode()), labels(rel.getEndNode()), rel.getPropertyKeys(), 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Holds the read lock until the transaction committed or rolled back, so the scan can't start in between.
+     */
+    @Override
+    public Delta beforeCommit(TransactionData data) throws Exception {
+        lock.readLock().lock();
+        try {
+            Delta delta = new Delta();
+            if (built) delta.collect(data);
+            return delta;
+        } catch (Throwable t) {
+            lock.readLock().unlock();
+            throw t;
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Delta delta) {
+        try {
+            if (built) apply(delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, Delta delta) {
+        if (delta != null) lock.readLock().unlock();
+    }
+
+    private void apply(Delta delta) {
+        add(labels, delta.labels);
+        add(types, delta.types);
+        add(patterns, delta.patterns);
+        delta.labelProperties.forEach((label, counts) -> add(labelProperties.computeIfAbsent(label, k -> new ConcurrentHashMap<>()), counts));
+        delta.typeProperties.forEach((type, counts) -> add(typeProperties.computeIfAbsent(type, k -> new ConcurrentHashMap<>()), counts));
+    }
+
+    private static <K> void add(Map<K, LongAdder> counters, Map<K, Long> delta) {
+        delta.forEach((key, value) -> {
+            if (value != 0) counters.computeIfAbsent(key, k -> new LongAdder()).add(value);
+        });
+    }
+
+    /**
+     * @return the counts greater than zero in the order of the keys
+     */
+    static <K> SortedMap<K, Long> counts(Map<K, LongAdder> counters, Comparator<? super K> order) {
+        SortedMap<K, Long> result = new TreeMap<>(order);
+        counters.forEach((key, counter) -> {
+            long count = counter.sum();
+            if (count > 0) result.put(key, count);
+        });
+        return result;
+    }
+
+    /**
+     * @return the property keys that nodes of the label or relationships of the type have
+     */
+    static List<String> properties(Map<String, Map<String, LongAdder>> counters, String name) {
+        Map<String, LongAdder> properties = counters.get(name);
+        return properties == null ? Collections.emptyList() : new ArrayList<>(counts(properties, Comparator.<String>naturalOrder()).keySet());
+    }
+
+    private static List<String> labels(Node node) {
+        List<String> result = new ArrayList<>();
+        for (Label label : node.getLabels()) result.add(label.name());
+        return result;
+    }
+
+    /**
+     * The changes a transaction makes to the counts.
+     * Every node and relationship it touches is subtracted as it was before and added as it is after the transaction.
+     */
+    static class Delta {
+        final Map<String, Long> labels = new HashMap<>();
+        final Map<String, Long> types = new HashMap<>();
+        final Map<List<String>, Long> patterns = new HashMap<>();
+        final Map<String, Map<String, Long>> labelProperties = new HashMap<>();
+        final Map<String, Map<String, Long>> typeProperties = new HashMap<>();
+
+        void node(Collection<String> nodeLabels, Iterable<String> keys, long sign) {
+            for (String label : nodeLabels) {
+                labels.merge(label, sign, Long::sum);
+                Map<String, Long> properties = labelProperties.computeIfAbsent(label, k -> new HashMap<>());
+                for (String key : keys) properties.merge(key, sign, Long::sum);
+            }
+        }
+
+        void relationship(String type, Collection<String> startLabels, Collection<String> endLabels, Iterable<String> keys, long sign) {
+            types.merge(type, sign, Long::sum);
+            Map<String, Long> properties = typeProperties.computeIfAbsent(type, k -> new HashMap<>());
+            for (String key : keys) properties.merge(key, sign, Long::sum);
+            for (String start : startLabels) {
+                for (String end : endLabels) {
+                    patterns.merge(asList(start, type, end), sign, Long::sum);
+                }
+            }
+        }
+
+        void collect(TransactionData data) {
+            Changes nodes = new Changes();
+            Changes rels = new Changes();
+            Map<Long, Node> touchedNodes = new HashMap<>();
+            Map<Long, Relationship> touchedRels = new HashMap<>();
+            Map<Long, Set<String>> addedLabels = new HashMap<>();
+            Map<Long, Set<String>> removedLabels = new HashMap<>();
+            for (Node node : data.createdNodes()) {
+                nodes.created.add(node.getId());
+                touchedNodes.put(node.getId(), node);
+            }
+            for (Node node : data.deletedNodes()) {
+                nodes.deleted.add(node.getId());
+                touchedNodes.put(node.getId(), node);
+            }
+            for (LabelEntry entry : data.assignedLabels()) {
+                touchedNodes.put(entry.node().getId(), entry.node());
+                addedLabels.computeIfAbsent(entry.node().getId(), k -> new HashSet<>()).add(entry.label().name());
+            }
+            for (LabelEntry entry : data.removedLabels()) {
+                touchedNodes.put(entry.node().getId(), entry.node());
+                removedLabels.computeIfAbsent(entry.node().getId(), k -> new HashSet<>()).add(entry.label().name());
+            }
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                touchedNodes.put(entry.entity().getId(), entry.entity());
+                if (entry.previouslyCommitedValue() == null) nodes.added(entry.entity().getId(), entry.key());
+            }
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                touchedNodes.put(entry.entity().getId(), entry.entity());
+                if (entry.previouslyCommitedValue() != null) nodes.removed(entry.entity().getId(), entry.key());
+            }
+            for (Relationship rel : data.createdRelationships()) {
+                rels.created.add(rel.getId());
+                touchedRels.put(rel.getId(), rel);
+            }
+            for (Relationship rel : data.deletedRelationships()) {
+                rels.deleted.add(rel.getId());
+                touchedRels.put(rel.getId(), rel);
+            }
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+                touchedRels.putIfAbsent(entry.entity().getId(), entry.entity());
+                if (entry.previouslyCommitedValue() == null) rels.added(entry.entity().getId(), entry.key());
+            }
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                touchedRels.putIfAbsent(entry.entity().getId(), entry.entity());
+                if (entry.previouslyCommitedValue() != null) rels.removed(entry.entity().getId(), entry.key());
+            }
+
+            // labels of the touched nodes before and after the transaction, the others have the same labels before and after
+            Map<Long, List<String>> before = new HashMap<>();
+            Map<Long, List<String>> after = new HashMap<>();
+            for (Node node : touchedNodes.values()) {
+                long id = node.getId();
+                boolean created = nodes.created.contains(id), deleted = nodes.deleted.contains(id);
+                List<String> labelsAfter = deleted ? Collections.emptyList() : MetaStats.labels(node);
+                List<String> labelsBefore = created ? Collections.emptyList() : changed(labelsAfter, addedLabels.get(id), removedLabels.get(id));
+                before.put(id, labelsBefore);
+                after.put(id, labelsAfter);
+                Set<String> keysAfter = new HashSet<>();
+                if (!deleted) for (String key : node.getPropertyKeys()) keysAfter.add(key);
+                if (!created) node(labelsBefore, nodes.before(id, keysAfter), -1);
+                if (!deleted) node(labelsAfter, keysAfter, 1);
+                // the relationships of a relabeled node move to other patterns
+                if (!created && !deleted && !labelsBefore.equals(labelsAfter)) {
+                    for (Relationship rel : node.getRelationships()) touchedRels.putIfAbsent(rel.getId(), rel);
+                }
+            }
+
+            for (Relationship rel : touchedRels.values()) {
+                long id = rel.getId();
+                boolean deleted = rels.deleted.contains(id);
+                String type = rel.getType().name();
+                Node start = rel.getStartNode(), end = rel.getEndNode();
+                Set<String> keysAfter = new HashSet<>();
+                if (!deleted) for (String key : rel.getPropertyKeys()) keysAfter.add(key);
+                if (!rels.created.contains(id)) {
+                    relationship(type, labels(before, start), labels(before, end), rels.before(id, keysAfter), -1);
+                }
+                if (!deleted) {
+                    relationship(type, labels(after, start), labels(after, end), keysAfter, 1);
+                }
+            }
+        }
+
+        private static List<String> labels(Map<Long, List<String>> labels, Node node) {
+            return labels.computeIfAbsent(node.getId(), id -> MetaStats.labels(node));
+        }
+
+        private static List<String> changed(List<String> labels, Set<String> added, Set<String> removed) {
+            Set<String> result = new LinkedHashSet<>(labels);
+            if (added != null) result.removeAll(added);
+            if (removed != null) result.addAll(removed);
+            return new ArrayList<>(result);
+        }
+    }
+
+    /**
+     * Entities created and deleted by a transaction and the property keys it added to and removed from the others.
+     */
+    private static class Changes {
+        final Set<Long> created = new HashSet<>();
+        final Set<Long> deleted = new HashSet<>();
+        final Map<Long, Set<String>> added = new HashMap<>();
+        final Map<Long, Set<String>> removed = new HashMap<>();
+
+        void added(long id, String key) {
+            added.computeIfAbsent(id, k -> new HashSet<>()).add(key);
+        }
+
+        void removed(long id, String key) {
+            removed.computeIfAbsent(id, k -> new HashSet<>()).add(key);
+        }
+
+        /**
+         * @return the property keys before the transaction given the keys after, for a deleted entity all its keys are removed ones
+         */
+        Set<String> before(long id, Set<String> keysAfter) {
+            Set<String> result = new HashSet<>(keysAfter);
+            result.removeAll(added.getOrDefault(id, Collections.emptySet()));
+            result.addAll(removed.getOrDefault(id, Collections.emptySet()));
+            return result;
+        }
+    }
+
+    private static String key(String storeDir) {
+        return new File(storeDir).getAbsoluteFile().toPath().normalize().toString();
+    }
+}
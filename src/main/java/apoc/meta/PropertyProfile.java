@@ -0,0 +1,115 @@
+package apoc.meta;
+
+import apoc.result.PropertyProfileResult;
+
+import java.util.*;
+
+/**
+ * Statistics of the values of one property of the nodes of a label in bounded memory:
+ * the number of values per type, min and max, a {@link HyperLogLog} of the distinct values
+ * and a uniform reservoir sample of the values.
+ * <p>
+ * Not thread safe, each worker profiles its own batch and the profiles are merged afterwards.
+ */
+public class PropertyProfile {
+
+    private final Random random;
+    private final Object[] sample;
+    private long count;
+    private final Map<String, Long> types = new TreeMap<>();
+    private Number minNumber, maxNumber;
+    private String minString, maxString;
+    private final HyperLogLog distinct = new HyperLogLog();
+
+    public PropertyProfile(int sampleSize, Random random) {
+        this.sample = new Object[sampleSize];
+        this.random = random;
+    }
+
+    public void add(Object value) {
+        if (value == null) return;
+        // reservoir sampling: the n-th value replaces a sampled one with probability size / n
+        if (count < sample.length) {
+            sample[(int) count] = value;
+        } else {
+            long index = (long) (random.nextDouble() * (count + 1));
+            if (index < sample.length) sample[(int) index] = value;
+        }
+        count++;
+        String type = Meta.Types.of(value).name();
+        types.merge(value.getClass().isArray() ? type + "[]" : type, 1L, Long::sum);
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (minNumber == null || compare(number, minNumber) < 0) minNumber = number;
+            if (maxNumber == null || compare(number, maxNumber) > 0) maxNumber = number;
+        } else if (value instanceof String) {
+            String string = (String) value;
+            if (minString == null || string.compareTo(minString) < 0) minString = string;
+            if (maxString == null || string.compareTo(maxString) > 0) maxString = string;
+        }
+        distinct.add(value);
+    }
+
+    public PropertyProfile merge(PropertyProfile other) {
+        Object[] merged = mergeSamples(sample, count, other.sample, other.count, random);
+        System.arraycopy(merged, 0, sample, 0, merged.length);
+        Arrays.fill(sample, merged.length, sample.length, null);
+        count += other.count;
+        other.types.forEach((type, n) -> types.merge(type, n, Long::sum));
+        if (other.minNumber != null && (minNumber == null || compare(other.minNumber, minNumber) < 0)) minNumber = other.minNumber;
+        if (other.maxNumber != null && (maxNumber == null || compare(other.maxNumber, maxNumber) > 0)) maxNumber = other.maxNumber;
+        if (other.minString != null && (minString == null || other.minString.compareTo(minString) < 0)) minString = other.minString;
+        if (other.maxString != null && (maxString == null || other.maxString.compareTo(maxString) > 0)) maxString = other.maxString;
+        distinct.merge(other.distinct);
+        return this;
+    }
+
+    /**
+     * Draws from the two samples in proportion to the number of values each one stands for,
+     * so the result is a uniform sample of both streams of values.
+     */
+    static Object[] mergeSamples(Object[] a, long countA, Object[] b, long countB, Random random) {
+        List<Object> left = new ArrayList<>(Arrays.asList(a).subList(0, (int) Math.min(a.length, countA)));
+        List<Object> right = new ArrayList<>(Arrays.asList(b).subList(0, (int) Math.min(b.length, countB)));
+        int size = (int) Math.min(a.length, countA + countB);
+        Object[] result = new Object[size];
+        long remainingA = countA, remainingB = countB;
+        for (int i = 0; i < size; i++) {
+            boolean fromA = right.isEmpty() || !left.isEmpty() && random.nextDouble() * (remainingA + remainingB) < remainingA;
+            List<Object> from = fromA ? left : right;
+            result[i] = from.remove(random.nextInt(from.size()));
+            if (fromA) remainingA--; else remainingB--;
+        }
+        return result;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long distinct() {
+        return Math.min(distinct.estimate(), count);
+    }
+
+    public List<Object> sample() {
+        return Arrays.asList(sample).subList(0, (int) Math.min(sample.length, count));
+    }
+
+    /**
+     * @param nodes the nodes with the label
+     * @param sampled the number of them that were examined
+     */
+    public PropertyProfileResult result(String label, String property, long nodes, long sampled) {
+        return new PropertyProfileResult(label, property, nodes, sampled, count,
+                sampled == 0 ? 0 : 1 - (double) count / sampled, new LinkedHashMap<>(types),
+                minNumber != null ? minNumber : minString, maxNumber != null ? maxNumber : maxString,
+                distinct(), new ArrayList<>(sample()));
+    }
+
+    private static int compare(Number a, Number b) {
+        if ((a instanceof Double || a instanceof Float) || (b instanceof Double || b instanceof Float)) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return Long.compare(a.longValue(), b.longValue());
+    }
+}
@@ -0,0 +1,58 @@
+package apoc.monitor;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.neo4j.jmx.JmxUtils.getObjectName;
+
+/**
+ * Resolves the neo4j management beans once per database and reads all attributes of a bean in one call.
+ */
+class Beans {
+
+    private static final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    private static final Map<GraphDatabaseService, Map<String, ObjectName>> names = Collections.synchronizedMap(new WeakHashMap<>());
+
+    static ObjectName objectName(GraphDatabaseService db, String bean) {
+        return names.computeIfAbsent(db, k -> new ConcurrentHashMap<>()).computeIfAbsent(bean, k -> getObjectName(db, bean));
+    }
+
+    /**
+     * @return the values of the attributes in the given order
+     */
+    static Object[] attributes(GraphDatabaseService db, String bean, String... attributes) {
+        try {
+            return read(objectName(db, bean), attributes);
+        } catch (InstanceNotFoundException e) {
+            // the bean was registered again, e.g. after a restart of the database
+            names.getOrDefault(db, Collections.emptyMap()).remove(bean);
+            try {
+                return read(objectName(db, bean), attributes);
+            } catch (InstanceNotFoundException | ReflectionException ex) {
+                throw new RuntimeException("Could not read the attributes of " + bean, ex);
+            }
+        } catch (ReflectionException e) {
+            throw new RuntimeException("Could not read the attributes of " + bean, e);
+        }
+    }
+
+    private static Object[] read(ObjectName name, String[] attributes) throws InstanceNotFoundException, ReflectionException {
+        Map<String, Object> values = new HashMap<>(attributes.length * 2);
+        for (Attribute attribute : server.getAttributes(name, attributes).asList()) {
+            values.put(attribute.getName(), attribute.getValue());
+        }
+        Object[] result = new Object[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            if (!values.containsKey(attributes[i])) {
+                throw new RuntimeException("No attribute " + attributes[i] + " in " + name);
+            }
+            result[i] = values.get(attributes[i]);
+        }
+        return result;
+    }
+}
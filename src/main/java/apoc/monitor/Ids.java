@@ -6,12 +6,8 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Procedure;
 
-import javax.management.ObjectName;
 import java.util.stream.Stream;
 
-import static org.neo4j.jmx.JmxUtils.getAttribute;
-import static org.neo4j.jmx.JmxUtils.getObjectName;
-
 public class Ids {
 
     private static final String JMX_OBJECT_NAME = "Primitive count";
@@ -30,13 +26,11 @@ public class Ids {
     }
 
     private IdsResult getIdsInUse() {
-        ObjectName objectName = getObjectName(db, JMX_OBJECT_NAME);
-
-        return new IdsResult(
-                getAttribute(objectName, NODE_IDS_KEY),
-                getAttribute(objectName, REL_IDS_KEY),
-                getAttribute(objectName, PROP_IDS_KEY),
-                getAttribute(objectName, REL_TYPE_IDS_KEY)
-        );
+        return getIdsInUse(db);
+    }
+
+    static IdsResult getIdsInUse(GraphDatabaseService db) {
+        Object[] values = Beans.attributes(db, JMX_OBJECT_NAME, NODE_IDS_KEY, REL_IDS_KEY, PROP_IDS_KEY, REL_TYPE_IDS_KEY);
+        return new IdsResult((long) values[0], (long) values[1], (long) values[2], (long) values[3]);
     }
 }
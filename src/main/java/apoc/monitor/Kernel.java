@@ -6,12 +6,9 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Procedure;
 
-import javax.management.ObjectName;
+import java.util.Date;
 import java.util.stream.Stream;
 
-import static org.neo4j.jmx.JmxUtils.getAttribute;
-import static org.neo4j.jmx.JmxUtils.getObjectName;
-
 public class Kernel {
 
     private static final String JMX_OBJECT_NAME = "Kernel";
@@ -30,18 +27,13 @@ public class Kernel {
     @Procedure
     @Description("apoc.monitor.kernel() returns informations about the neo4j kernel")
     public Stream<KernelInfoResult> kernel() {
-        ObjectName objectName = getObjectName(database, JMX_OBJECT_NAME);
-
-        KernelInfoResult info = new KernelInfoResult(
-                getAttribute(objectName, READ_ONLY),
-                getAttribute(objectName, KERNEL_VERSION),
-                getAttribute(objectName, STORE_ID),
-                getAttribute(objectName, START_TIME),
-                getAttribute(objectName, DB_NAME),
-                getAttribute(objectName, STORE_LOG_VERSION),
-                getAttribute(objectName, STORE_CREATION_DATE));
-
-        return Stream.of(info);
+        return Stream.of(getKernelInfo(database));
+    }
+
+    static KernelInfoResult getKernelInfo(GraphDatabaseService db) {
+        Object[] values = Beans.attributes(db, JMX_OBJECT_NAME, READ_ONLY, KERNEL_VERSION, STORE_ID, START_TIME, DB_NAME, STORE_LOG_VERSION, STORE_CREATION_DATE);
+        return new KernelInfoResult((Boolean) values[0], (String) values[1], (String) values[2], (Date) values[3],
+                (String) values[4], (long) values[5], (Date) values[6]);
     }
 
 }
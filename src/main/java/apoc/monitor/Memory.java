@@ -0,0 +1,42 @@
+package apoc.monitor;
+
+import apoc.Description;
+import apoc.result.GcInfoResult;
+import apoc.result.MemoryInfoResult;
+import apoc.result.PageCacheInfoResult;
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Procedure;
+
+import java.lang.management.ManagementFactory;
+import java.util.stream.Stream;
+
+public class Memory {
+
+    @Context
+    public GraphDatabaseAPI db;
+
+    @Procedure
+    @Description("apoc.monitor.pageCache() returns page size, number of pages and the pins, hits, faults, hit ratio (-1 if pins are not counted), evictions, flushes and bytes read and written of the page cache since the database started")
+    public Stream<PageCacheInfoResult> pageCache() {
+        DependencyResolver resolver = db.getDependencyResolver();
+        PageCache pageCache = resolver.resolveDependency(PageCache.class);
+        PageCacheCounters counters = resolver.resolveDependency(PageCacheCounters.class);
+        return Stream.of(new PageCacheInfoResult(pageCache.pageSize(), pageCache.maxCachedPages(), counters));
+    }
+
+    @Procedure
+    @Description("apoc.monitor.memory() returns used, committed and max heap, used and committed non-heap memory and the total count and time of garbage collections")
+    public Stream<MemoryInfoResult> memory() {
+        return Stream.of(new MemoryInfoResult(ManagementFactory.getMemoryMXBean(), ManagementFactory.getGarbageCollectorMXBeans()));
+    }
+
+    @Procedure
+    @Description("apoc.monitor.gc() returns count and time of the collections of each garbage collector")
+    public Stream<GcInfoResult> gc() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().map(GcInfoResult::new);
+    }
+}
@@ -0,0 +1,25 @@
+package apoc.monitor;
+
+import apoc.Description;
+import apoc.result.MonitorResult;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Procedure;
+
+import java.util.stream.Stream;
+
+public class Monitor {
+
+    @Context
+    public GraphDatabaseAPI db;
+
+    @Procedure
+    @Description("apoc.monitor.all() returns the ids in use, kernel, store size and transaction informations in one row")
+    public Stream<MonitorResult> all() {
+        return Stream.of(new MonitorResult(
+                Ids.getIdsInUse(db),
+                Kernel.getKernelInfo(db),
+                Store.getStoreInfo(db),
+                Transaction.getTransactionInfo(db)));
+    }
+}
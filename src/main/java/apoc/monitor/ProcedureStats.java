@@ -0,0 +1,114 @@
+package apoc.monitor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Latency, rows and errors of instrumented procedures, reported by <code>apoc.monitor.procedures</code>.
+ * <p>
+ * A call is recorded when its stream is exhausted, fails or is closed, its latency covers creating and consuming the stream.
+ */
+public class ProcedureStats {
+
+    private static final Map<String, ProcedureStats> stats = new ConcurrentHashMap<>();
+
+    final String name;
+    final LongAdder errors = new LongAdder();
+    /** in microseconds */
+    final Histogram latency = new Histogram();
+    final Histogram rows = new Histogram();
+
+    private ProcedureStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Wrap the body of a procedure: <code>return ProcedureStats.track("apoc.load.json", () -> ...);</code>
+     */
+    public static <T> Stream<T> track(String name, Supplier<Stream<T>> call) {
+        long start = System.nanoTime();
+        Stream<T> stream;
+        try {
+            stream = call.get();
+        } catch (RuntimeException | Error e) {
+            of(name).record(start, 0, true);
+            throw e;
+        }
+        Tracker<T> tracker = new Tracker<>(name, start, stream.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tracker, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    tracker.finish(false);
+                    stream.close();
+                });
+    }
+
+    static ProcedureStats of(String name) {
+        return stats.computeIfAbsent(name, ProcedureStats::new);
+    }
+
+    static Collection<ProcedureStats> all() {
+        return stats.values();
+    }
+
+    /**
+     * Starts new statistics for the procedure, calls still running are recorded in the new ones.
+     */
+    static void reset(String name) {
+        stats.remove(name);
+    }
+
+    private void record(long start, long count, boolean error) {
+        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        rows.record(count);
+        if (error) errors.increment();
+    }
+
+    private static class Tracker<T> implements Iterator<T> {
+        private final String name;
+        private final long start;
+        private final Iterator<T> iterator;
+        private long rows;
+        private boolean finished;
+
+        Tracker(String name, long start, Iterator<T> iterator) {
+            this.name = name;
+            this.start = start;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                boolean hasNext = iterator.hasNext();
+                if (!hasNext) finish(false);
+                return hasNext;
+            } catch (RuntimeException | Error e) {
+                finish(true);
+                throw e;
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                T next = iterator.next();
+                rows++;
+                return next;
+            } catch (RuntimeException | Error e) {
+                finish(true);
+                throw e;
+            }
+        }
+
+        void finish(boolean error) {
+            if (finished) return;
+            finished = true;
+            of(name).record(start, rows, error);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package apoc.monitor;
+
+import apoc.Description;
+import apoc.result.ProcedureStatsResult;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class Procedures {
+
+    @Procedure
+    @Description("apoc.monitor.procedures({names:['apoc.load.'],reset:false}) returns calls, errors, rows and latency percentiles of the instrumented procedures, reset:true starts over after returning them")
+    public Stream<ProcedureStatsResult> procedures(@Name("config") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        List<String> names = config.get("names") instanceof List ? ((List<?>) config.get("names")).stream().map(String::valueOf).collect(Collectors.toList()) : null;
+        boolean reset = Boolean.TRUE.equals(config.get("reset"));
+        List<ProcedureStats> selected = ProcedureStats.all().stream()
+                .filter(stats -> names == null || names.stream().anyMatch(stats.name::startsWith))
+                .sorted(Comparator.comparing(stats -> stats.name))
+                .collect(Collectors.toList());
+        if (reset) selected.forEach(stats -> ProcedureStats.reset(stats.name));
+        return selected.stream().map(Procedures::toResult);
+    }
+
+    private static ProcedureStatsResult toResult(ProcedureStats stats) {
+        Histogram latency = stats.latency;
+        Histogram rows = stats.rows;
+        return new ProcedureStatsResult(stats.name, latency.count(), stats.errors.sum(), rows.sum(),
+                latency.mean() / 1000, latency.percentile(0.5) / 1000d, latency.percentile(0.9) / 1000d,
+                latency.percentile(0.99) / 1000d, latency.max() / 1000d,
+                rows.percentile(0.5), rows.percentile(0.99), rows.max());
+    }
+}
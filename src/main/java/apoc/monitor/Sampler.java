@@ -0,0 +1,183 @@
+package apoc.monitor;
+
+import apoc.ApocConfiguration;
+import apoc.Pools;
+import apoc.result.MetricStatsResult;
+import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Polls the transaction counters and the id and store size JMX beans every <code>apoc.monitor.sampler.interval</code> ms (default 10000, 0 disables)
+ * into a ring buffer of the last <code>apoc.monitor.sampler.capacity</code> samples (default 360).
+ * <p>
+ * Samples are kept as primitive longs, one array per metric, indexed like the array of sample times.
+ */
+public class Sampler {
+
+    public static final int DEFAULT_INTERVAL = 10_000;
+    public static final int DEFAULT_CAPACITY = 360;
+
+    static final List<Metric> METRICS = Arrays.asList(
+            tx("tx.committed", TransactionCounters::getNumberOfCommittedTransactions, true),
+            tx("tx.rolledBack", TransactionCounters::getNumberOfRolledBackTransactions, true),
+            tx("tx.terminated", TransactionCounters::getNumberOfTerminatedTransactions, true),
+            tx("tx.started", TransactionCounters::getNumberOfStartedTransactions, true),
+            tx("tx.active", TransactionCounters::getNumberOfActiveTransactions, false),
+            jmx("ids.nodes", "Primitive count", "NumberOfNodeIdsInUse"),
+            jmx("ids.rels", "Primitive count", "NumberOfRelationshipIdsInUse"),
+            jmx("ids.props", "Primitive count", "NumberOfPropertyIdsInUse"),
+            jmx("ids.relTypes", "Primitive count", "NumberOfRelationshipTypeIdsInUse"),
+            jmx("store.total", "Store file sizes", "TotalStoreSize"),
+            jmx("store.log", "Store file sizes", "LogicalLogSize"),
+            jmx("store.nodes", "Store file sizes", "NodeStoreSize"),
+            jmx("store.rels", "Store file sizes", "RelationshipStoreSize"),
+            jmx("store.props", "Store file sizes", "PropertyStoreSize"),
+            jmx("store.strings", "Store file sizes", "StringStoreSize"),
+            jmx("store.arrays", "Store file sizes", "ArrayStoreSize"));
+
+    private static final Map<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    static class Metric {
+        final String name;
+        /** counters only grow, their rate between samples is more interesting than their value */
+        final boolean counter;
+        final ToLongFunction<GraphDatabaseAPI> reader;
+
+        Metric(String name, boolean counter, ToLongFunction<GraphDatabaseAPI> reader) {
+            this.name = name;
+            this.counter = counter;
+            this.reader = reader;
+        }
+    }
+
+    private static Metric jmx(String name, String bean, String attribute) {
+        return new Metric(name, false, (db) -> ((Number) Beans.attributes(db, bean, attribute)[0]).longValue());
+    }
+
+    /**
+     * The Transactions bean is only registered in the enterprise edition, so transactions are counted from the kernel's counters.
+     */
+    private static Metric tx(String name, ToLongFunction<TransactionCounters> counter, boolean isCounter) {
+        return new Metric(name, isCounter, (db) -> counter.applyAsLong(db.getDependencyResolver().resolveDependency(TransactionCounters.class)));
+    }
+
+    private final GraphDatabaseAPI db;
+    private final Log log;
+    private final long[] times;
+    private final long[][] values;
+    private final boolean[] available;
+    private int next;
+    private int size;
+    private volatile ScheduledFuture<?> future;
+
+    Sampler(GraphDatabaseAPI db, Log log, int capacity) {
+        this.db = db;
+        this.log = log;
+        this.times = new long[capacity];
+        this.values = new long[METRICS.size()][capacity];
+        this.available = new boolean[METRICS.size()];
+    }
+
+    /**
+     * @return the sampler of the database or null if sampling is disabled
+     */
+    public static Sampler of(GraphDatabaseAPI db) {
+        return samplers.get(key(db.getStoreDir()));
+    }
+
+    public static Sampler start(GraphDatabaseAPI db, Log log) {
+        int interval = ApocConfiguration.getInt("monitor.sampler.interval", DEFAULT_INTERVAL);
+        int capacity = ApocConfiguration.getInt("monitor.sampler.capacity", DEFAULT_CAPACITY);
+        if (interval <= 0 || capacity < 2) return null;
+        Sampler sampler = new Sampler(db, log, capacity);
+        samplers.put(key(db.getStoreDir()), sampler);
+        sampler.future = Pools.SCHEDULED.scheduleAtFixedRate(sampler::sample, interval, interval, TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    public void stop() {
+        samplers.remove(key(db.getStoreDir()), this);
+        ScheduledFuture<?> f = future;
+        if (f != null) f.cancel(false);
+    }
+
+    /**
+     * Reads all metrics, a metric that can't be read keeps its previous value.
+     */
+    public void sample() {
+        if (!db.isAvailable(0)) return;
+        long[] sample = new long[METRICS.size()];
+        boolean[] read = new boolean[sample.length];
+        for (int i = 0; i < sample.length; i++) {
+            try {
+                sample[i] = METRICS.get(i).reader.applyAsLong(db);
+                read[i] = true;
+            } catch (RuntimeException e) {
+                log.debug("Could not sample " + METRICS.get(i).name + ": " + e.getMessage());
+            }
+        }
+        record(System.currentTimeMillis(), sample, read);
+    }
+
+    synchronized void record(long time, long[] sample, boolean[] read) {
+        int previous = (next - 1 + times.length) % times.length;
+        times[next] = time;
+        for (int i = 0; i < sample.length; i++) {
+            if (read[i]) available[i] = true;
+            values[i][next] = read[i] || size == 0 ? sample[i] : values[i][previous];
+        }
+        next = (next + 1) % times.length;
+        if (size < times.length) size++;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+
+    /**
+     * @return statistics of every metric that could be read over the samples of the last <code>windowMillis</code> before <code>now</code>
+     */
+    public List<MetricStatsResult> stats(long windowMillis, long now) {
+        long[] sampleTimes;
+        long[][] sampleValues = new long[METRICS.size()][];
+        boolean[] metrics;
+        synchronized (this) {
+            metrics = available.clone();
+            int from = 0;
+            while (from < size && times[index(from)] < now - windowMillis) from++;
+            int count = size - from;
+            sampleTimes = new long[count];
+            for (int j = 0; j < count; j++) sampleTimes[j] = times[index(from + j)];
+            for (int i = 0; i < sampleValues.length; i++) {
+                sampleValues[i] = new long[count];
+                for (int j = 0; j < count; j++) sampleValues[i][j] = values[i][index(from + j)];
+            }
+        }
+        List<MetricStatsResult> result = new ArrayList<>(METRICS.size());
+        for (int i = 0; i < sampleValues.length; i++) {
+            if (!metrics[i]) continue;
+            Metric metric = METRICS.get(i);
+            result.add(new MetricStatsResult(metric.name, metric.counter, windowMillis / 1000, sampleTimes, sampleValues[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @param position 0 for the oldest sample
+     */
+    private int index(int position) {
+        return (next - size + position + times.length) % times.length;
+    }
+
+    private static String key(String storeDir) {
+        return new File(storeDir).getAbsoluteFile().toPath().normalize().toString();
+    }
+}
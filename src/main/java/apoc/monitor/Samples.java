@@ -0,0 +1,32 @@
+package apoc.monitor;
+
+import apoc.Description;
+import apoc.result.MetricStatsResult;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class Samples {
+
+    @Context
+    public GraphDatabaseAPI db;
+
+    @Procedure
+    @Description("apoc.monitor.samples({windows:[60,300,900],names:['tx.','store.total']}) returns value, delta, rate and min, max, p50, p90, p99 of the sampled transaction, id and store size metrics over the given windows in seconds")
+    public Stream<MetricStatsResult> samples(@Name("config") Map<String, Object> config) {
+        Sampler sampler = Sampler.of(db);
+        if (sampler == null) throw new RuntimeException("Sampling is disabled, set apoc.monitor.sampler.interval to a positive number of ms");
+        if (config == null) config = Collections.emptyMap();
+        List<?> windows = config.get("windows") instanceof List ? (List<?>) config.get("windows") : Arrays.asList(60, 300, 900);
+        List<String> names = config.get("names") instanceof List ? ((List<?>) config.get("names")).stream().map(String::valueOf).collect(Collectors.toList()) : null;
+        long now = System.currentTimeMillis();
+        return windows.stream()
+                .flatMap(window -> sampler.stats(((Number) window).longValue() * 1000, now).stream())
+                .filter(stats -> names == null || names.stream().anyMatch(stats.name::startsWith));
+    }
+}
@@ -6,12 +6,8 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Procedure;
 
-import javax.management.ObjectName;
 import java.util.stream.Stream;
 
-import static org.neo4j.jmx.JmxUtils.getAttribute;
-import static org.neo4j.jmx.JmxUtils.getObjectName;
-
 public class Store  {
 
     private static final String JMX_OBJECT_NAME = "Store file sizes";
@@ -29,18 +25,13 @@ public class Store  {
     @Procedure
     @Description("apoc.monitor.store() returns informations about the sizes of the different parts of the neo4j graph store")
     public Stream<StoreInfoResult> store() {
-        ObjectName objectName = getObjectName(db, JMX_OBJECT_NAME);
-
-        StoreInfoResult storeInfo = new StoreInfoResult(
-                getAttribute(objectName, LOG_SIZE),
-                getAttribute(objectName, STRING_SIZE),
-                getAttribute(objectName, ARRAY_SIZE),
-                getAttribute(objectName, REL_SIZE),
-                getAttribute(objectName, PROP_SIZE),
-                getAttribute(objectName, TOTAL_SIZE),
-                getAttribute(objectName, NODE_SIZE));
-
-        return Stream.of(storeInfo);
+        return Stream.of(getStoreInfo(db));
+    }
+
+    static StoreInfoResult getStoreInfo(GraphDatabaseService db) {
+        Object[] values = Beans.attributes(db, JMX_OBJECT_NAME, LOG_SIZE, STRING_SIZE, ARRAY_SIZE, REL_SIZE, PROP_SIZE, TOTAL_SIZE, NODE_SIZE);
+        return new StoreInfoResult((long) values[0], (long) values[1], (long) values[2], (long) values[3],
+                (long) values[4], (long) values[5], (long) values[6]);
     }
 
 
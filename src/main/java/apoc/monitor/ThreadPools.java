@@ -0,0 +1,17 @@
+package apoc.monitor;
+
+import apoc.Description;
+import apoc.Pools;
+import apoc.result.ThreadPoolInfoResult;
+import org.neo4j.procedure.Procedure;
+
+import java.util.stream.Stream;
+
+public class ThreadPools {
+
+    @Procedure
+    @Description("apoc.monitor.pools() returns size, active threads, queue size and task counts of the apoc thread pools (batch, background, scheduled)")
+    public Stream<ThreadPoolInfoResult> pools() {
+        return Pools.all().entrySet().stream().map(e -> new ThreadPoolInfoResult(e.getKey(), e.getValue()));
+    }
+}
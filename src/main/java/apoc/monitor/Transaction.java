@@ -1,49 +1,91 @@
 package apoc.monitor;
 
 import apoc.Description;
+import apoc.result.ActiveTransactionResult;
 import apoc.result.TransactionInfoResult;
-import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
+import org.neo4j.kernel.impl.api.KernelTransactions;
+import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Procedure;
 
-import javax.management.ObjectName;
+import java.lang.reflect.Field;
+import java.util.Comparator;
 import java.util.stream.Stream;
 
-import static org.neo4j.jmx.JmxUtils.getAttribute;
-import static org.neo4j.jmx.JmxUtils.getObjectName;
-
+/**
+ * Reads the kernel's transaction counters directly, they back the <code>Transactions</code> bean,
+ * which is only registered in the enterprise edition.
+ */
 public class Transaction {
 
-    private static final String JMX_OBJECT_NAME = "Transactions";
-    private static final String ROLLED_BACK_TX = "NumberOfRolledBackTransactions";
-    private static final String PEAK_TX = "PeakNumberOfConcurrentTransactions";
-    private static final String LAST_TX_ID = "LastCommittedTxId";
-    private static final String OPEN_TX = "NumberOfOpenTransactions";
-    private static final String OPENED_TX = "NumberOfOpenedTransactions";
-    private static final String COMMITTED_TX = "NumberOfCommittedTransactions";
+    /**
+     * Kernel transactions don't expose their start time in this version.
+     */
+    private static final Field START_TIME = startTimeField();
+
+    @Context
+    public GraphDatabaseAPI db;
 
     @Context
-    public GraphDatabaseService db;
+    public KernelTransaction tx;
 
     @Procedure
     @Description("apoc.monitor.tx() returns informations about the neo4j transaction manager")
     public Stream<TransactionInfoResult> tx() throws Exception {
-        return Stream.of(getTransactionInfo());
+        return Stream.of(getTransactionInfo(db));
     }
 
-    private TransactionInfoResult getTransactionInfo() throws Exception {
-        ObjectName objectName = getObjectName(db, JMX_OBJECT_NAME);
+    @Procedure
+    @Description("apoc.monitor.transactions() returns the active transactions, oldest first, with their type, start time, age in ms, whether they have changes, are terminated or are the current one")
+    public Stream<ActiveTransactionResult> transactions() {
+        long now = System.currentTimeMillis();
+        KernelTransactions transactions = db.getDependencyResolver().resolveDependency(KernelTransactions.class);
+        return transactions.activeTransactions().stream()
+                .map(transaction -> {
+                    long started = startTime(transaction);
+                    boolean changes = transaction instanceof KernelTransactionImplementation && ((KernelTransactionImplementation) transaction).hasTxStateWithChanges();
+                    return new ActiveTransactionResult(transaction.transactionType().name(), started, started == 0 ? -1 : now - started,
+                            changes, transaction.shouldBeTerminated(), transaction == tx);
+                })
+                .sorted(Comparator.comparingLong(result -> result.startTime));
+    }
 
-        return new TransactionInfoResult(
-                getAttribute(objectName, ROLLED_BACK_TX),
-                getAttribute(objectName, PEAK_TX),
-                getAttribute(objectName, LAST_TX_ID),
-                getAttribute(objectName, OPEN_TX),
-                getAttribute(objectName, OPENED_TX),
-                getAttribute(objectName, COMMITTED_TX)
-        );
+    private static long startTime(KernelTransaction transaction) {
+        if (START_TIME == null || !(transaction instanceof KernelTransactionImplementation)) return 0;
+        try {
+            return START_TIME.getLong(transaction);
+        } catch (IllegalAccessException e) {
+            return 0;
+        }
     }
 
+    private static Field startTimeField() {
+        try {
+            Field field = KernelTransactionImplementation.class.getDeclaredField("startTimeMillis");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | SecurityException e) {
+            return null;
+        }
+    }
 
+    static TransactionInfoResult getTransactionInfo(GraphDatabaseAPI db) {
+        DependencyResolver resolver = db.getDependencyResolver();
+        TransactionCounters counters = resolver.resolveDependency(TransactionCounters.class);
+        TransactionIdStore txIds = resolver.resolveDependency(TransactionIdStore.class);
 
+        return new TransactionInfoResult(
+                counters.getNumberOfRolledBackTransactions(),
+                counters.getPeakConcurrentNumberOfTransactions(),
+                txIds.getLastCommittedTransactionId(),
+                counters.getNumberOfActiveTransactions(),
+                counters.getNumberOfStartedTransactions(),
+                counters.getNumberOfCommittedTransactions()
+        );
+    }
 }
@@ -22,6 +22,7 @@ import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
 import apoc.Description;
+import apoc.monitor.ProcedureStats;
 
 
 public class PathExplorer {
@@ -46,7 +47,7 @@ public class PathExplorer {
 			                   , @Name("minLevel") long minLevel
 			                   , @Name("maxLevel") long maxLevel ) throws Exception {
 		List<Node> nodes = startToNodes(start);
-		return explorePathPrivate(nodes, pathFilter, labelFilter, minLevel, maxLevel);
+		return ProcedureStats.track("apoc.path.expand", () -> explorePathPrivate(nodes, pathFilter, labelFilter, minLevel, maxLevel));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,132 @@
+package apoc.periodic;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Cron expressions with the five fields <code>minute hour day-of-month month day-of-week</code>,
+ * each field may be <code>*</code>, a value, a range <code>a-b</code>, a step <code>*&#47;n</code> or <code>a-b/n</code> and lists of those.
+ * Months and days of week can be given by their english three letter names, sunday is 0 or 7.
+ * Also supports <code>@hourly</code>, <code>@daily</code>, <code>@weekly</code>, <code>@monthly</code> and <code>@yearly</code>.
+ * <p>
+ * Like in cron, if both day-of-month and day-of-week are restricted, a day matches if either matches.
+ */
+public class Cron {
+
+    private static final List<String> MONTHS = Arrays.asList("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+    private static final List<String> DAYS = Arrays.asList("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+    private static final int MAX_YEARS = 5;
+
+    private final String expression;
+    private final BitSet minutes, hours, daysOfMonth, months, daysOfWeek;
+    private final boolean anyDayOfMonth, anyDayOfWeek;
+
+    private Cron(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, null, 0);
+        this.hours = parseField(fields[1], 0, 23, null, 0);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null, 0);
+        this.months = parseField(fields[3], 1, 12, MONTHS, 1);
+        this.daysOfWeek = parseField(fields[4], 0, 7, DAYS, 0);
+        if (daysOfWeek.get(7)) daysOfWeek.set(0);
+        this.anyDayOfMonth = fields[2].equals("*");
+        this.anyDayOfWeek = fields[4].equals("*");
+    }
+
+    public static Cron parse(String expression) {
+        if (expression == null) throw new IllegalArgumentException("Cron expression must not be null");
+        String cron = expression.trim();
+        switch (cron.toLowerCase()) {
+            case "@hourly": cron = "0 * * * *"; break;
+            case "@daily": case "@midnight": cron = "0 0 * * *"; break;
+            case "@weekly": cron = "0 0 * * 0"; break;
+            case "@monthly": cron = "0 0 1 * *"; break;
+            case "@yearly": case "@annually": cron = "0 0 1 1 *"; break;
+        }
+        String[] fields = cron.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression '" + expression + "' must have 5 fields: minute hour day-of-month month day-of-week");
+        }
+        try {
+            return new Cron(expression, fields);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cron expression '" + expression + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the first time in epoch millis strictly after the given time that matches the expression in the zone
+     */
+    public long next(long afterMillis, ZoneId zone) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone).truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime limit = time.plusYears(MAX_YEARS);
+        while (time.isBefore(limit)) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!matchesDay(time.toLocalDate())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time.atZone(zone).toInstant().toEpochMilli();
+            }
+        }
+        throw new IllegalStateException("Cron expression '" + expression + "' doesn't match within " + MAX_YEARS + " years");
+    }
+
+    public long next(long afterMillis) {
+        return next(afterMillis, ZoneId.systemDefault());
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(LocalDate date) {
+        boolean dayOfMonth = daysOfMonth.get(date.getDayOfMonth());
+        boolean dayOfWeek = daysOfWeek.get(date.getDayOfWeek().getValue() % 7);
+        if (anyDayOfMonth || anyDayOfWeek) return dayOfMonth && dayOfWeek;
+        return dayOfMonth || dayOfWeek;
+    }
+
+    private static BitSet parseField(String field, int min, int max, List<String> names, int nameOffset) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash != -1) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                if (step < 1) throw new IllegalArgumentException("step must be positive in " + field);
+                part = part.substring(0, slash);
+            }
+            int from, to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = part.indexOf('-');
+                from = value(dash == -1 ? part : part.substring(0, dash), names, nameOffset);
+                to = dash == -1 ? (slash == -1 ? from : max) : value(part.substring(dash + 1), names, nameOffset);
+            }
+            if (from < min || to > max || from > to) {
+                throw new IllegalArgumentException(part + " is out of range " + min + "-" + max);
+            }
+            for (int i = from; i <= to; i += step) bits.set(i);
+        }
+        return bits;
+    }
+
+    private static int value(String text, List<String> names, int nameOffset) {
+        if (names != null) {
+            int index = names.indexOf(text.toUpperCase());
+            if (index != -1) return index + nameOffset;
+        }
+        return Integer.parseInt(text);
+    }
+}
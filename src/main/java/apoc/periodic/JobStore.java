@@ -0,0 +1,124 @@
+package apoc.periodic;
+
+import apoc.convert.Json;
+import org.codehaus.jackson.type.TypeReference;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the definitions of the statement jobs created by <code>apoc.periodic.repeat</code> and <code>apoc.periodic.cron</code>
+ * in a JSON file in the store directory, so that they are re-armed when the database starts again.
+ * <p>
+ * Each definition is a map with <code>name, statement, params</code> and either <code>rate</code> (seconds) or <code>cron</code>,
+ * plus <code>lastRun</code>, the start of the last run in epoch millis.
+ */
+public class JobStore {
+
+    public static final String FILE_NAME = "apoc-jobs.json";
+
+    private static final Map<String, JobStore> stores = new ConcurrentHashMap<>();
+
+    final GraphDatabaseAPI db;
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final Log log;
+    private final Map<String, Map<String, Object>> jobs = new LinkedHashMap<>();
+
+    private JobStore(GraphDatabaseAPI db, FileSystemAbstraction fs, File storeDir, Log log) {
+        this.db = db;
+        this.fs = fs;
+        this.file = new File(storeDir, FILE_NAME);
+        this.log = log;
+    }
+
+    /**
+     * @return the job store of the database or null if it wasn't started by the kernel extension
+     */
+    public static JobStore of(GraphDatabaseAPI db) {
+        return stores.get(key(db.getStoreDir()));
+    }
+
+    /**
+     * Loads the job definitions of the database and re-arms them.
+     */
+    public static JobStore start(GraphDatabaseAPI db, FileSystemAbstraction fs, File storeDir, Log log) {
+        JobStore store = new JobStore(db, fs, storeDir, log);
+        store.load();
+        stores.put(key(storeDir.getPath()), store);
+        for (Map<String, Object> definition : store.definitions()) {
+            try {
+                Periodic.arm(db, store, definition, true);
+            } catch (Exception e) {
+                log.warn("Could not re-arm job " + definition.get("name") + ": " + e.getMessage(), e);
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Cancels the jobs of the database, they stay persisted.
+     */
+    public void stop() {
+        stores.remove(key(file.getParentFile().getPath()), this);
+        for (Map<String, Object> definition : definitions()) {
+            Periodic.cancelJob((String) definition.get("name"), false);
+        }
+    }
+
+    public synchronized List<Map<String, Object>> definitions() {
+        List<Map<String, Object>> result = new ArrayList<>(jobs.size());
+        for (Map<String, Object> definition : jobs.values()) result.add(new LinkedHashMap<>(definition));
+        return result;
+    }
+
+    public synchronized void save(Map<String, Object> definition) {
+        jobs.put((String) definition.get("name"), new LinkedHashMap<>(definition));
+        write();
+    }
+
+    public synchronized void remove(String name) {
+        if (jobs.remove(name) != null) write();
+    }
+
+    public synchronized void ran(String name, long time) {
+        Map<String, Object> definition = jobs.get(name);
+        if (definition == null) return;
+        definition.put("lastRun", time);
+        write();
+    }
+
+    private void load() {
+        if (!fs.fileExists(file)) return;
+        try (InputStream in = fs.openAsInputStream(file)) {
+            List<Map<String, Object>> definitions = Json.OBJECT_MAPPER.readValue(in, new TypeReference<List<Map<String, Object>>>() {});
+            for (Map<String, Object> definition : definitions) jobs.put((String) definition.get("name"), definition);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not read periodic jobs from " + file + ", they are not re-armed", e);
+        }
+    }
+
+    /**
+     * Writes to a temporary file first, so a crash can't leave a truncated file behind.
+     */
+    private void write() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (OutputStream out = fs.openAsOutputStream(tmp, false)) {
+                Json.OBJECT_MAPPER.writeValue(out, new ArrayList<>(jobs.values()));
+            }
+            if (fs.fileExists(file)) fs.deleteFile(file);
+            fs.renameFile(tmp, file);
+        } catch (IOException e) {
+            log.error("Could not write periodic jobs to " + file, e);
+        }
+    }
+
+    private static String key(String storeDir) {
+        return new File(storeDir).getAbsoluteFile().toPath().normalize().toString();
+    }
+}
@@ -1,8 +1,11 @@
 package apoc.periodic;
 
 import apoc.Description;
+import apoc.Pools;
+import org.neo4j.graphdb.QueryStatistics;
 import org.neo4j.graphdb.Result;
-import org.neo4j.helpers.collection.Iterators;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionTerminatedException;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Context;
@@ -18,28 +21,46 @@ import static java.lang.System.currentTimeMillis;
 
 public class Periodic {
 
-    final static ScheduledExecutorService jobs = Executors.newScheduledThreadPool(Math.max(1,Runtime.getRuntime().availableProcessors()/4));
+    /**
+     * Finished and cancelled jobs stay visible in the job list for this long.
+     */
+    public static final long RETAIN_FINISHED_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Persisted jobs re-armed at startup wait this long for the database to become available.
+     */
+    static final long AVAILABLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Only times repeated and delayed jobs, they run on {@link Pools#BACKGROUND} like one-off jobs, so a slow job can't hold up the others.
+     * Commit batches run on {@link Pools#DEFAULT}.
+     */
+    final static ScheduledExecutorService jobs = Pools.SCHEDULED;
 
     @Context public GraphDatabaseAPI db;
 
-    final static Map<JobInfo,Future> list = new ConcurrentHashMap<>();
+    final static Map<JobInfo,Job> list = new ConcurrentHashMap<>();
     static {
-        Runnable runnable = () -> {
-            for (Iterator<Map.Entry<JobInfo, Future>> it = list.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<JobInfo, Future> entry = it.next();
-                if (entry.getValue().isDone() || entry.getValue().isCancelled()) it.remove();
-            }
-        };
-        jobs.scheduleAtFixedRate(runnable,10,10,TimeUnit.SECONDS);
+        jobs.scheduleAtFixedRate(() -> removeFinished(currentTimeMillis()),10,10,TimeUnit.SECONDS);
+    }
+
+    /**
+     * The key stays the info of the first job registered under a name, the one of the current job is in the value.
+     */
+    static void removeFinished(long now) {
+        for (Iterator<Map.Entry<JobInfo, Job>> it = list.entrySet().iterator(); it.hasNext(); ) {
+            Job job = it.next().getValue();
+            if (job.isFinished() && now - job.info.lastFinished > RETAIN_FINISHED_MILLIS) it.remove();
+        }
     }
 
     @Context
     public KernelTransaction tx;
 
     @Procedure
-    @Description("apoc.periodic.list - list all jobs")
+    @Description("apoc.periodic.list - list all jobs with their runs, start and end times, last duration, updates and last error")
     public Stream<JobInfo> list() {
-        return list.entrySet().stream().map( (e) -> e.getKey().update(e.getValue()));
+        return list.values().stream().map(Job::info);
     }
 
     @Procedure
@@ -50,13 +71,48 @@ public class Periodic {
         long sum = 0, executions = 0, count;
         long start = currentTimeMillis();
         do {
-            count = jobs.submit(() -> executeNumericResultStatement(statement, params)).get();
+            count = Pools.DEFAULT.submit(() -> executeNumericResultStatement(statement, params)).get();
             sum += count;
             if (count>0) executions++;
         } while (count > 0);
         return Stream.of(new RundownResult(sum,executions, currentTimeMillis() - start));
     }
 
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.periodic.commitCursor(statement,params) - runs the given statement in separate transactions, the value of its 'cursor' column is passed as {cursor} parameter to the next run, until it returns no or an unchanged cursor, executions counts every run including the last one")
+    public Stream<RundownResult> commitCursor(@Name("statement") String statement, @Name("params") Map<String,Object> parameters) throws ExecutionException, InterruptedException {
+        Map<String,Object> params = parameters == null ? new HashMap<>() : new HashMap<>(parameters);
+        long sum = 0, executions = 0;
+        long start = currentTimeMillis();
+        Object cursor = params.get("cursor");
+        while (true) {
+            params.put("cursor", cursor);
+            Object[] next = Pools.DEFAULT.submit(() -> executeCursorStatement(statement, params)).get();
+            executions++;
+            sum += ((Number) next[1]).longValue();
+            if (next[0] == null || next[0].equals(cursor)) break;
+            cursor = next[0];
+        }
+        return Stream.of(new RundownResult(sum, executions, currentTimeMillis() - start));
+    }
+
+    /**
+     * @return the cursor of the last row and the number of updates
+     */
+    private Object[] executeCursorStatement(String statement, Map<String, Object> parameters) {
+        Object cursor = null;
+        try (Result result = db.execute(statement, parameters)) {
+            if (!result.columns().contains("cursor")) {
+                throw new RuntimeException("Statement must return a 'cursor' column: " + statement);
+            }
+            while (result.hasNext()) {
+                cursor = result.next().get("cursor");
+            }
+            return new Object[]{cursor, updates(result.getQueryStatistics())};
+        }
+    }
+
     public static class RundownResult {
         public final long updates;
         public final long executions;
@@ -85,89 +141,209 @@ public class Periodic {
     }
 
     @Procedure
-    @Description("apoc.periodic.cancel(name) - cancel job with the given name")
+    @Description("apoc.periodic.cancel(name) - cancel job with the given name, a running statement is terminated")
     public Stream<JobInfo> cancel(@Name("name") String name) {
-        JobInfo info = new JobInfo(name);
-        Future future = list.remove(info);
-        if (future != null) {
-            future.cancel(true);
-            return Stream.of(info.update(future));
-        }
-        return Stream.empty();
+        JobStore store = JobStore.of(db);
+        if (store != null) store.remove(name);
+        Job job = cancelJob(name, true);
+        return job == null ? Stream.empty() : Stream.of(job.info());
+    }
+
+    static Job cancelJob(String name, boolean keepListed) {
+        Job job = list.get(new JobInfo(name));
+        if (job == null) return null;
+        job.cancel();
+        if (!keepListed) list.remove(job.info, job);
+        return job;
     }
 
     @Procedure
     @Description("apoc.periodic.submit('name',statement) - submit a one-off background statement")
     public Stream<JobInfo> submit(@Name("name") String name, @Name("statement") String statement) {
-        JobInfo info = submit(name, () -> {
-            try {
-                Iterators.count(db.execute(statement));
-            } catch(Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+        JobInfo info = submit(name, (job) -> job.execute(db, statement, null));
         return Stream.of(info);
     }
 
     @Procedure
-    @Description("apoc.periodic.schedule('name',statement,repeat-time-in-seconds) submit a repeatedly-called background statement")
+    @Description("apoc.periodic.repeat('name',statement,repeat-time-in-seconds) submit a repeatedly-called background statement, it is persisted and re-armed when the database restarts")
     public Stream<JobInfo> repeat(@Name("name") String name, @Name("statement") String statement, @Name("rate") long rate) {
-        JobInfo info = schedule(name, () -> Iterators.count(db.execute(statement)),0,rate);
-        return Stream.of(info);
+        if (rate <= 0) throw new RuntimeException("Rate must be positive, was " + rate);
+        Map<String, Object> definition = new LinkedHashMap<>();
+        definition.put("name", name);
+        definition.put("statement", statement);
+        definition.put("rate", rate);
+        return Stream.of(persist(definition));
     }
 
-    // TODO
-    @Description("apoc.periodic.countdown('name',statement,repeat-time-in-seconds) submit a repeatedly-called background statement until it returns 0")
-    public Stream<JobInfo> countdown(@Name("name") String name, @Name("statement") String statement, @Name("rate") long rate) {
-        JobInfo info = submit(name, new Countdown(name, statement, rate));
-        return Stream.of(info);
+    @Procedure
+    @Description("apoc.periodic.cron('name',statement,'0 3 * * *',{params:{},catchUp:true}) submit a background statement run at the times of the cron expression (minute hour day-of-month month day-of-week), it is persisted and re-armed when the database restarts, missed runs are caught up with a single run")
+    public Stream<JobInfo> cron(@Name("name") String name, @Name("statement") String statement, @Name("cron") String cron, @Name("config") Map<String,Object> config) {
+        Cron.parse(cron);
+        if (config == null) config = Collections.emptyMap();
+        Map<String, Object> definition = new LinkedHashMap<>();
+        definition.put("name", name);
+        definition.put("statement", statement);
+        definition.put("cron", cron);
+        if (config.get("params") instanceof Map) definition.put("params", config.get("params"));
+        definition.put("catchUp", !Boolean.FALSE.equals(config.get("catchUp")));
+        return Stream.of(persist(definition));
+    }
+
+    private JobInfo persist(Map<String, Object> definition) {
+        JobStore store = JobStore.of(db);
+        if (store != null) store.save(definition);
+        return arm(db, store, definition, false);
+    }
+
+    /**
+     * Schedules a persisted job definition. After a restart a repeated job continues its rate from the last run,
+     * a cron job whose time passed while the database was down runs once right away, however many times it was missed.
+     * Each run is scheduled after the previous one finished, so runs never overlap.
+     */
+    static JobInfo arm(GraphDatabaseAPI db, JobStore store, Map<String, Object> definition, boolean restart) {
+        String name = (String) definition.get("name");
+        String statement = (String) definition.get("statement");
+        Map<String, Object> params = params(definition.get("params"));
+        long lastRun = definition.get("lastRun") instanceof Number ? ((Number) definition.get("lastRun")).longValue() : 0;
+        long now = currentTimeMillis();
+        JobTask task = (job) -> {
+            if (!db.isAvailable(AVAILABLE_TIMEOUT_MILLIS)) throw new RuntimeException("Database not available");
+            if (store != null) store.ran(name, currentTimeMillis());
+            return job.execute(db, statement, params);
+        };
+        if (definition.get("cron") != null) {
+            Cron cron = Cron.parse((String) definition.get("cron"));
+            Job job = register(new JobInfo(name, 0, 0));
+            job.info.cron = cron.toString();
+            boolean catchUp = restart && lastRun > 0 && !Boolean.FALSE.equals(definition.get("catchUp")) && cron.next(lastRun) <= now;
+            scheduleCron(job, cron, task, catchUp ? now : cron.next(now));
+            return job.info;
+        }
+        long rate = ((Number) definition.get("rate")).longValue();
+        long delay = restart && lastRun > 0 ? Math.max(0, lastRun + TimeUnit.SECONDS.toMillis(rate) - now) : 0;
+        Job job = register(new JobInfo(name, TimeUnit.MILLISECONDS.toSeconds(delay), rate));
+        repeat(job, task, delay, TimeUnit.SECONDS.toMillis(rate));
+        return job.info;
+    }
+
+    private static void scheduleCron(Job job, Cron cron, JobTask task, long at) {
+        later(job, () -> {
+            job.run(task);
+            scheduleCron(job, cron, task, cron.next(currentTimeMillis()));
+        }, at - currentTimeMillis());
+    }
+
+    /**
+     * Runs the task after the delay and then again each rate after the previous run finished.
+     */
+    private static void repeat(Job job, JobTask task, long delayMillis, long rateMillis) {
+        later(job, () -> {
+            job.run(task);
+            repeat(job, task, rateMillis, rateMillis);
+        }, delayMillis);
+    }
+
+    /**
+     * Hands the step over to {@link Pools#BACKGROUND} after the delay, the scheduler thread only submits it.
+     * The next step is scheduled from within the step, so the job's future is never done while the job continues.
+     */
+    private static void later(Job job, Runnable step, long delayMillis) {
+        if (job.isCancelled()) return;
+        if (delayMillis <= 0) {
+            job.future = Pools.BACKGROUND.submit(step);
+            return;
+        }
+        job.future = jobs.schedule(() -> {
+            if (!job.isCancelled()) job.future = Pools.BACKGROUND.submit(step);
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.periodic.countdown('name',statement,delay-in-seconds,{limit:1000,targetMillis:1000,minLimit:1,maxLimit:1000000,params:{}}) submit a background statement that is repeated until it returns 0, its {limit} parameter is adapted so that each transaction takes about targetMillis")
+    public Stream<JobInfo> countdown(@Name("name") String name, @Name("statement") String statement, @Name("rate") long rate, @Name("config") Map<String,Object> config) {
+        Job job = register(new JobInfo(name, 0, rate));
+        new Countdown(db, statement, rate, config == null ? Collections.emptyMap() : config).next(job);
+        return Stream.of(job.info);
+    }
+
+    /**
+     * Work of a job, gets its job to run statements with, so they can be terminated on cancel.
+     */
+    public interface JobTask {
+        /**
+         * @return the number of updates done
+         */
+        long run(Job job) throws Exception;
     }
 
     /**
      * Call from a procedure that gets a <code>@Context GraphDatbaseAPI db;</code> injected and provide that db to the runnable.
      */
-    public static <T> JobInfo submit(String name, Runnable task) {
-        JobInfo info = new JobInfo(name);
-        Future<T> future = list.remove(info);
-        if (future != null && !future.isDone()) future.cancel(false);
+    public static JobInfo submit(String name, Runnable task) {
+        return submit(name, toJobTask(task));
+    }
 
-        Future newFuture = jobs.submit(task);
-        list.put(info,newFuture);
-        return info;
+    public static JobInfo submit(String name, JobTask task) {
+        Job job = register(new JobInfo(name));
+        job.future = Pools.BACKGROUND.submit(() -> job.run(task));
+        return job.info;
     }
 
     /**
      * Call from a procedure that gets a <code>@Context GraphDatbaseAPI db;</code> injected and provide that db to the runnable.
      */
     public static JobInfo schedule(String name, Runnable task, long delay, long repeat) {
-        JobInfo info = new JobInfo(name,delay,repeat);
-        Future future = list.remove(info);
-        if (future != null && !future.isDone()) future.cancel(false);
+        return schedule(name, toJobTask(task), delay, repeat);
+    }
 
-        ScheduledFuture<?> newFuture = jobs.scheduleWithFixedDelay(task, delay, repeat, TimeUnit.SECONDS);
-        list.put(info,newFuture);
-        return info;
+    public static JobInfo schedule(String name, JobTask task, long delay, long repeat) {
+        Job job = register(new JobInfo(name,delay,repeat));
+        repeat(job, task, TimeUnit.SECONDS.toMillis(delay), TimeUnit.SECONDS.toMillis(repeat));
+        return job.info;
     }
 
     /**
      * Call from a procedure that gets a <code>@Context GraphDatbaseAPI db;</code> injected and provide that db to the runnable.
      */
     public static JobInfo schedule(String name, Runnable task, long delay) {
-        JobInfo info = new JobInfo(name,delay,0);
-        Future future = list.remove(info);
-        if (future != null) future.cancel(false);
+        Job job = register(new JobInfo(name,delay,0));
+        later(job, () -> job.run(toJobTask(task)), TimeUnit.SECONDS.toMillis(delay));
+        return job.info;
+    }
+
+    private static JobTask toJobTask(Runnable task) {
+        return (job) -> {
+            task.run();
+            return 0;
+        };
+    }
 
-        ScheduledFuture<?> newFuture = jobs.schedule(task, delay, TimeUnit.SECONDS);
-        list.put(info,newFuture);
-        return info;
+    /**
+     * Registers a new job under the name of the info, a previous job with the same name is cancelled.
+     */
+    private static Job register(JobInfo info) {
+        Job job = new Job(info);
+        Job previous = list.put(info, job);
+        if (previous != null) previous.cancel();
+        return job;
     }
 
     public static class JobInfo {
         public final String name;
         public long delay;
         public long rate;
+        public String cron;
         public boolean done;
         public boolean cancelled;
+        public boolean running;
+        public long runs;
+        public long updates;
+        public long firstStarted;
+        public long lastStarted;
+        public long lastFinished;
+        public long lastDuration;
+        public String error;
 
         public JobInfo(String name) {
             this.name = name;
@@ -179,12 +355,6 @@ public class Periodic {
             this.rate = rate;
         }
 
-        public JobInfo update(Future future) {
-            this.done = future.isDone();
-            this.cancelled = future.isCancelled();
-            return this;
-        }
-
         @Override
         public boolean equals(Object o) {
             return this == o || o instanceof JobInfo && name.equals(((JobInfo) o).name);
@@ -196,22 +366,190 @@ public class Periodic {
         }
     }
 
-    private class Countdown implements Runnable {
-        private final String name;
+    /**
+     * Runtime state of a job, the statistics are kept in its {@link JobInfo}.
+     * Cancelling is cooperative: the current and further runs are skipped and a running transaction is terminated.
+     */
+    public static class Job {
+        private final JobInfo info;
+        private volatile Future<?> future;
+        private volatile Transaction tx;
+        private volatile boolean cancelled;
+
+        Job(JobInfo info) {
+            this.info = info;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Runs the statement in its own transaction, that is terminated if the job is cancelled.
+         * @return the number of updates of the statement
+         */
+        public long execute(GraphDatabaseAPI db, String statement, Map<String, Object> params) {
+            if (cancelled) return 0;
+            try (Transaction tx = db.beginTx()) {
+                this.tx = tx;
+                long updates;
+                try (Result result = db.execute(statement, params == null ? Collections.emptyMap() : params)) {
+                    while (result.hasNext()) result.next();
+                    updates = updates(result.getQueryStatistics());
+                }
+                tx.success();
+                return updates;
+            } finally {
+                this.tx = null;
+            }
+        }
+
+        /**
+         * Like {@link #execute}, but returns the sum of the numeric values of the result like {@link Periodic#commit}.
+         */
+        public long executeNumeric(GraphDatabaseAPI db, String statement, Map<String, Object> params) {
+            if (cancelled) return 0;
+            try (Transaction tx = db.beginTx()) {
+                this.tx = tx;
+                long sum = 0;
+                try (Result result = db.execute(statement, params == null ? Collections.emptyMap() : params)) {
+                    while (result.hasNext()) {
+                        for (Object value : result.next().values()) {
+                            if (value instanceof Number) sum += ((Number) value).longValue();
+                        }
+                    }
+                }
+                tx.success();
+                return sum;
+            } finally {
+                this.tx = null;
+            }
+        }
+
+        void run(JobTask task) {
+            if (cancelled) return;
+            long start = currentTimeMillis();
+            synchronized (info) {
+                if (info.firstStarted == 0) info.firstStarted = start;
+                info.lastStarted = start;
+                info.running = true;
+            }
+            long updates = 0;
+            String error = null;
+            try {
+                updates = task.run(this);
+            } catch (Exception e) {
+                if (!(cancelled && e instanceof TransactionTerminatedException)) {
+                    error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                }
+            } finally {
+                long end = currentTimeMillis();
+                synchronized (info) {
+                    info.running = false;
+                    info.runs++;
+                    info.updates += updates;
+                    info.lastFinished = end;
+                    info.lastDuration = end - start;
+                    info.error = error;
+                }
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            Transaction current = tx;
+            if (current != null) current.terminate();
+            Future<?> f = future;
+            // no interrupt, that would close the store's file channels the job is reading from
+            if (f != null) f.cancel(false);
+            synchronized (info) {
+                if (!info.running) info.lastFinished = currentTimeMillis();
+            }
+        }
+
+        boolean isFinished() {
+            Future<?> f = future;
+            return cancelled || f != null && f.isDone();
+        }
+
+        JobInfo info() {
+            synchronized (info) {
+                Future<?> f = future;
+                info.done = f != null && f.isDone() && !info.running;
+                info.cancelled = cancelled;
+                return info;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the map with string keys, or null if the value isn't a map
+     */
+    static Map<String, Object> params(Object value) {
+        if (!(value instanceof Map)) return null;
+        Map<String, Object> params = new HashMap<>();
+        ((Map<?, ?>) value).forEach((key, v) -> params.put(String.valueOf(key), v));
+        return params;
+    }
+
+    static long updates(QueryStatistics stats) {
+        return stats.getNodesCreated() + stats.getNodesDeleted() + stats.getRelationshipsCreated() + stats.getRelationshipsDeleted()
+                + stats.getPropertiesSet() + stats.getLabelsAdded() + stats.getLabelsRemoved();
+    }
+
+    /**
+     * Runs the statement with a <code>{limit}</code> parameter until it returns 0, each run is scheduled after the previous finished.
+     * The limit is scaled by the ratio of target to measured transaction time, by at most a factor of 2 per run.
+     */
+    public static class Countdown {
+        private final GraphDatabaseAPI db;
         private final String statement;
         private final long rate;
-
-        public Countdown(String name, String statement, long rate) {
-            this.name = name;
+        private final long targetMillis;
+        private final long minLimit;
+        private final long maxLimit;
+        private final Map<String, Object> params;
+        private volatile long limit;
+        private volatile long lastCount;
+
+        Countdown(GraphDatabaseAPI db, String statement, long rate, Map<String, Object> config) {
+            this.db = db;
             this.statement = statement;
             this.rate = rate;
+            this.targetMillis = Math.max(1, toLong(config.get("targetMillis"), 1000));
+            this.minLimit = Math.max(1, toLong(config.get("minLimit"), 1));
+            this.maxLimit = Math.max(minLimit, toLong(config.get("maxLimit"), 1_000_000));
+            this.limit = Math.min(maxLimit, Math.max(minLimit, toLong(config.get("limit"), 1000)));
+            Map<String, Object> params = params(config.get("params"));
+            this.params = params == null ? Collections.emptyMap() : params;
         }
 
-        @Override
-        public void run() {
-            if (Periodic.this.executeNumericResultStatement(statement, null) > 0) {
-                jobs.schedule(() -> submit(name, this), rate, TimeUnit.SECONDS);
-            }
+        void next(Job job) {
+            if (job.isCancelled()) return;
+            Runnable step = () -> {
+                job.run(this::step);
+                if (lastCount > 0) next(job);
+            };
+            later(job, step, TimeUnit.SECONDS.toMillis(rate));
+        }
+
+        private long step(Job job) {
+            Map<String, Object> runParams = new HashMap<>(params);
+            runParams.put("limit", limit);
+            long start = currentTimeMillis();
+            lastCount = 0;
+            lastCount = job.executeNumeric(db, statement, runParams);
+            limit = adapt(limit, currentTimeMillis() - start, targetMillis, minLimit, maxLimit);
+            return lastCount;
+        }
+
+        public static long adapt(long limit, long millis, long targetMillis, long minLimit, long maxLimit) {
+            double factor = Math.min(2d, Math.max(0.5d, (double) targetMillis / Math.max(1, millis)));
+            return Math.min(maxLimit, Math.max(minLimit, Math.round(limit * factor)));
+        }
+
+        private static long toLong(Object value, long defaultValue) {
+            return value instanceof Number ? ((Number) value).longValue() : defaultValue;
         }
     }
 }
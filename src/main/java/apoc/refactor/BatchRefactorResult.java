@@ -0,0 +1,26 @@
+package apoc.refactor;
+
+/**
+ * Progress of a bulk refactoring, one row per committed (or failed) batch.
+ */
+public class BatchRefactorResult {
+    public long batch;
+    public long items;
+    public long operations;
+    public long total;
+    public long failed;
+    public long retries;
+    public long time;
+    public String error;
+
+    public BatchRefactorResult(long batch, long items) {
+        this.batch = batch;
+        this.items = items;
+    }
+
+    public BatchRefactorResult withError(Exception e) {
+        this.error = e.getMessage();
+        this.failed = items;
+        return this;
+    }
+}
@@ -0,0 +1,113 @@
+package apoc.refactor;
+
+import apoc.Pools;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransientFailureException;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * Runs the work of bulk refactorings in batches, each batch in its own transaction on the worker pool.
+ * <p>
+ * The input iterator is consumed lazily on the calling thread, so it may read in the calling transaction.
+ * Up to <code>parallel</code> batches run at the same time, batches failing with a transient error like a deadlock are retried.
+ * Progress is streamed as one {@link BatchRefactorResult} per batch in input order.
+ */
+class Batches {
+
+    interface Task<T> {
+        /**
+         * @return the number of operations performed for the items
+         */
+        long apply(List<T> items) throws Exception;
+    }
+
+    static class Config {
+        final int batchSize;
+        final int parallel;
+        final int retries;
+
+        Config(Map<String, Object> config, int defaultBatchSize) {
+            if (config == null) config = Collections.emptyMap();
+            this.batchSize = Math.max(1, toInt(config.get("batchSize"), defaultBatchSize));
+            Object parallel = config.get("parallel");
+            this.parallel = Boolean.TRUE.equals(parallel) ? Math.max(2, Runtime.getRuntime().availableProcessors()) : Math.max(1, toInt(parallel, 1));
+            this.retries = Math.max(0, toInt(config.get("retries"), 5));
+        }
+
+        private static int toInt(Object value, int defaultValue) {
+            return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+        }
+    }
+
+    static <T> Stream<BatchRefactorResult> run(GraphDatabaseAPI api, Iterator<T> input, Config config, Task<T> task) {
+        Iterator<BatchRefactorResult> results = new Iterator<BatchRefactorResult>() {
+            final Deque<Future<BatchRefactorResult>> running = new ArrayDeque<>();
+            long batches, total;
+
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !running.isEmpty();
+            }
+
+            @Override
+            public BatchRefactorResult next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                try {
+                    BatchRefactorResult result = running.poll().get();
+                    total += result.items;
+                    result.total = total;
+                    return result;
+                } catch (InterruptedException | ExecutionException e) {
+                    running.forEach(f -> f.cancel(true));
+                    running.clear();
+                    throw new RuntimeException("Error running batch: " + e.getMessage(), e);
+                }
+            }
+
+            private void fill() {
+                while (running.size() < config.parallel && input.hasNext()) {
+                    List<T> items = new ArrayList<>(Math.min(config.batchSize, 10_000));
+                    while (items.size() < config.batchSize && input.hasNext()) items.add(input.next());
+                    long batch = batches++;
+                    running.add(Pools.DEFAULT.submit(() -> execute(api, batch, items, config.retries, task)));
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED), false);
+    }
+
+    private static <T> BatchRefactorResult execute(GraphDatabaseAPI api, long batch, List<T> items, int retries, Task<T> task) {
+        BatchRefactorResult result = new BatchRefactorResult(batch, items.size());
+        long start = currentTimeMillis();
+        while (true) {
+            try (Transaction tx = api.beginTx()) {
+                result.operations = task.apply(items);
+                tx.success();
+            } catch (Exception e) {
+                if (isTransient(e) && result.retries < retries) {
+                    result.retries++;
+                    continue;
+                }
+                result.withError(e);
+            }
+            result.time = currentTimeMillis() - start;
+            return result;
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransientFailureException) return true;
+        }
+        return false;
+    }
+}
@@ -1,13 +1,18 @@
 package apoc.refactor;
 
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import apoc.Description;
 import apoc.result.NodeResult;
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongLongMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
@@ -18,6 +23,9 @@ public class GraphRefactoring {
     @Context
     public GraphDatabaseService db;
 
+    @Context
+    public GraphDatabaseAPI api;
+
     @Context
     public Log log;
 
@@ -56,6 +64,103 @@ public class GraphRefactoring {
         return doCloneNodes(nodes,true);
     }
 
+    /**
+     * Clones the nodes in batches while recording the old to new id mapping,
+     * then recreates the relationships between cloned nodes between their clones.
+     */
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.refactor.cloneSubgraph([node1,node2,...],{keepExternal:false,batchSize:10000,parallel:1}) YIELD source, target, error - clones the nodes with labels and properties and the relationships between them in batched transactions, with keepExternal:true also relationships to other nodes, if a batch fails the clones of the committed batches are deleted again")
+    public Stream<RefactorResult> cloneSubgraph(@Name("nodes") List<Node> nodes, @Name("config") Map<String, Object> config) {
+        boolean keepExternal = config != null && Boolean.TRUE.equals(config.get("keepExternal"));
+        Batches.Config relConfig = new Batches.Config(config, 10_000);
+        Batches.Config nodeConfig = new Batches.Config(singleThreaded(config), 10_000);
+        long[] sources = nodes.stream().mapToLong(Node::getId).distinct().toArray();
+        long[] targets = new long[sources.length];
+        try (PrimitiveLongLongMap clones = Primitive.offHeapLongLongMap(Math.max(16, sources.length * 4 / 3))) {
+            try {
+                cloneSubgraph(sources, clones, keepExternal, nodeConfig, relConfig);
+            } catch (RuntimeException e) {
+                // the batches before the failed one are committed
+                deleteClones(sources, clones, nodeConfig);
+                throw e;
+            }
+            for (int i = 0; i < sources.length; i++) targets[i] = clones.get(sources[i]);
+        }
+        return IntStream.range(0, sources.length).mapToObj(i -> new RefactorResult(sources[i]).withOther(targets[i]));
+    }
+
+    private void cloneSubgraph(long[] sources, PrimitiveLongLongMap clones, boolean keepExternal, Batches.Config nodeConfig, Batches.Config relConfig) {
+        // the map is only written by one batch at a time, relationship batches just read it
+        Iterator<Long> sourceIds = Arrays.stream(sources).iterator();
+        Iterator<BatchRefactorResult> nodeBatches = Batches.run(api, sourceIds, nodeConfig, (batch) -> {
+            for (Long id : batch) {
+                Node node = api.getNodeById(id);
+                clones.put(id, copyProperties(node, copyLabels(node, api.createNode())).getId());
+            }
+            return batch.size();
+        }).iterator();
+        while (nodeBatches.hasNext()) {
+            BatchRefactorResult b = nodeBatches.next();
+            if (b.error == null) continue;
+            // the clones of the failed batch were rolled back, single threaded no later batch has started
+            int from = (int) (b.batch * nodeConfig.batchSize), to = (int) Math.min(sources.length, from + (long) nodeConfig.batchSize);
+            for (int i = from; i < to; i++) clones.remove(sources[i]);
+            throw new RuntimeException("Error cloning nodes in batch " + b.batch + ": " + b.error);
+        }
+        failOnError(Batches.run(api, Arrays.stream(sources).iterator(), relConfig, (batch) -> {
+            long operations = 0;
+            for (Long id : batch) {
+                Node node = api.getNodeById(id);
+                Node clone = api.getNodeById(clones.get(id));
+                for (Relationship rel : node.getRelationships()) {
+                    boolean outgoing = rel.getStartNode().equals(node);
+                    Node other = rel.getOtherNode(node);
+                    if (clones.containsKey(other.getId())) {
+                        // internal relationships are copied once, from their start node
+                        if (!outgoing) continue;
+                        other = api.getNodeById(clones.get(other.getId()));
+                    } else if (!keepExternal) {
+                        continue;
+                    }
+                    copyProperties(rel, outgoing ? clone.createRelationshipTo(other, rel.getType()) : other.createRelationshipTo(clone, rel.getType()));
+                    operations++;
+                }
+            }
+            return operations;
+        }), "relationships");
+    }
+
+    /**
+     * Deletes the committed clones with their relationships.
+     */
+    private void deleteClones(long[] sources, PrimitiveLongLongMap clones, Batches.Config config) {
+        Iterator<Long> cloneIds = Arrays.stream(sources).filter(clones::containsKey).map(clones::get).iterator();
+        failOnError(Batches.run(api, cloneIds, config, (batch) -> {
+            for (Long id : batch) {
+                Node clone = api.getNodeById(id);
+                for (Relationship rel : clone.getRelationships()) rel.delete();
+                clone.delete();
+            }
+            return batch.size();
+        }), "cleanup");
+    }
+
+    private static Map<String, Object> singleThreaded(Map<String, Object> config) {
+        Map<String, Object> result = config == null ? new HashMap<>() : new HashMap<>(config);
+        result.put("parallel", 1);
+        return result;
+    }
+
+    /**
+     * Waits for all batches, so none is still running when the clones are deleted.
+     */
+    private static void failOnError(Stream<BatchRefactorResult> batches, String what) {
+        batches.filter(b -> b.error != null).reduce((first, next) -> first).ifPresent(b -> {
+            throw new RuntimeException("Error cloning " + what + " in batch " + b.batch + ": " + b.error);
+        });
+    }
+
     /**
      * Merges the nodes onto the first node.
      * The other nodes and relationships are deleted.
@@ -74,6 +179,40 @@ public class GraphRefactoring {
         return Stream.of(new NodeResult(first));
     }
 
+    /**
+     * Groups the nodes of the label by the value of the key property and merges each group onto its node with the lowest id.
+     * Groups are merged in batches, each in its own transaction.
+     */
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.refactor.dedupeNodes('Label','key',{batchSize:1000,parallel:1,collapseRelationships:true}) YIELD batch, items, operations, total, failed, time, error - merges nodes of the label with the same key value onto the one with the lowest id in batched transactions, optionally collapsing parallel relationships, streams progress per batch")
+    public Stream<BatchRefactorResult> dedupeNodes(@Name("label") String label, @Name("key") String key, @Name("config") Map<String, Object> config) {
+        Batches.Config batchConfig = new Batches.Config(config, 1000);
+        boolean collapse = config == null || !Boolean.FALSE.equals(config.get("collapseRelationships"));
+        Map<Object, List<Long>> groups = new HashMap<>();
+        try (ResourceIterator<Node> nodes = db.findNodes(Label.label(label))) {
+            while (nodes.hasNext()) {
+                Node node = nodes.next();
+                Object value = node.getProperty(key, null);
+                if (value != null) groups.computeIfAbsent(groupKey(value), k -> new ArrayList<>(2)).add(node.getId());
+            }
+        }
+        Iterator<List<Long>> duplicates = groups.values().stream().filter(ids -> ids.size() > 1).iterator();
+        return Batches.run(api, duplicates, batchConfig, (batch) -> {
+            long operations = 0;
+            for (List<Long> ids : batch) {
+                Node target = api.getNodeById(Collections.min(ids));
+                for (Long id : ids) {
+                    if (id == target.getId()) continue;
+                    mergeNodes(api.getNodeById(id), target, true);
+                    operations++;
+                }
+                if (collapse) operations += collapseRelationships(target);
+            }
+            return operations;
+        });
+    }
+
     /**
      * Changes the relationship-type of a relationship by creating a new one between the two nodes
      * and deleting the old.
@@ -84,10 +223,7 @@ public class GraphRefactoring {
     public Stream<RelationshipRefactorResult> setType(@Name("relationship") Relationship rel, @Name("newType") String newType) {
         RelationshipRefactorResult result = new RelationshipRefactorResult(rel.getId());
         try {
-            Relationship newRel = rel.getStartNode().createRelationshipTo(rel.getEndNode(), RelationshipType.withName(newType));
-            copyProperties(rel, newRel);
-            rel.delete();
-            return Stream.of(result.withOther(newRel));
+            return Stream.of(result.withOther(rewrite(rel, rel.getStartNode(), rel.getEndNode(), RelationshipType.withName(newType))));
         } catch (Exception e) {
             return Stream.of(result.withError(e));
         }
@@ -102,10 +238,7 @@ public class GraphRefactoring {
     public Stream<RelationshipRefactorResult> to(@Name("relationship") Relationship rel, @Name("newNode") Node newNode) {
         RelationshipRefactorResult result = new RelationshipRefactorResult(rel.getId());
         try {
-            Relationship newRel = rel.getStartNode().createRelationshipTo(newNode, rel.getType());
-            copyProperties(rel,newRel);
-            rel.delete();
-            return Stream.of(result.withOther(newRel));
+            return Stream.of(result.withOther(rewrite(rel, rel.getStartNode(), newNode, rel.getType())));
         } catch (Exception e) {
             return Stream.of(result.withError(e));
         }
@@ -120,15 +253,90 @@ public class GraphRefactoring {
     public Stream<RelationshipRefactorResult> from(@Name("relationship") Relationship rel, @Name("newNode") Node newNode) {
         RelationshipRefactorResult result = new RelationshipRefactorResult(rel.getId());
         try {
-            Relationship newRel = newNode.createRelationshipTo(rel.getEndNode(), rel.getType());
-            copyProperties(rel,newRel);
-            rel.delete();
-            return Stream.of(result.withOther(newRel));
+            return Stream.of(result.withOther(rewrite(rel, newNode, rel.getEndNode(), rel.getType())));
         } catch (Exception e) {
             return Stream.of(result.withError(e));
         }
     }
 
+    /**
+     * Changes the type of all relationships of a type, or of the given ones, in batched transactions.
+     */
+    @Procedure("apoc.refactor.rename.type")
+    @PerformsWrites
+    @Description("apoc.refactor.rename.type('OLD_TYPE','NEW_TYPE',[rels] or null,{batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - changes the type of all relationships of the old type (or only of the given ones) in batched transactions, streams progress per batch, nothing if the types are equal")
+    public Stream<BatchRefactorResult> renameType(@Name("oldType") String oldType, @Name("newType") String newType,
+                                                  @Name("rels") List<Relationship> rels, @Name("config") Map<String, Object> config) {
+        // nothing to change, and rewritten relationships would be scanned again
+        if (oldType.equals(newType)) return Stream.empty();
+        RelationshipType type = RelationshipType.withName(newType);
+        ResourceIterator<Relationship> scan = rels == null ? db.getAllRelationships().iterator() : null;
+        Iterator<Relationship> candidates = scan != null ? scan : rels.iterator();
+        RelationshipType old = RelationshipType.withName(oldType);
+        Iterator<Long> ids = StreamSupport.stream(Spliterators.spliteratorUnknownSize(candidates, Spliterator.ORDERED), false)
+                .filter(rel -> rel.isType(old)).map(Relationship::getId).iterator();
+        return Batches.run(api, ids, new Batches.Config(config, 10_000), (batch) -> {
+            for (Long id : batch) {
+                Relationship rel = api.getRelationshipById(id);
+                rewrite(rel, rel.getStartNode(), rel.getEndNode(), type);
+            }
+            return batch.size();
+        }).onClose(() -> { if (scan != null) scan.close(); });
+    }
+
+    /**
+     * Moves the relationships of the given nodes onto the target node in batched transactions.
+     */
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.refactor.redirectAll([nodes],target,{types:['TYPE',...],direction:'BOTH',batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - moves the relationships of the given nodes (optionally only of the types and direction) onto the target node in batched transactions, streams progress per batch")
+    public Stream<BatchRefactorResult> redirectAll(@Name("nodes") List<Node> nodes, @Name("target") Node target, @Name("config") Map<String, Object> config) {
+        Map<String, Object> conf = config == null ? Collections.emptyMap() : config;
+        Direction direction = Direction.valueOf(String.valueOf(conf.getOrDefault("direction", "BOTH")).toUpperCase());
+        RelationshipType[] types = conf.get("types") instanceof List ? ((List<?>) conf.get("types")).stream()
+                .map(t -> RelationshipType.withName(t.toString())).toArray(RelationshipType[]::new) : new RelationshipType[0];
+        long targetId = target.getId();
+        Set<Long> sources = new HashSet<>();
+        for (Node node : nodes) if (node.getId() != targetId) sources.add(node.getId());
+        long[] rels = relationshipIds(nodes, sources, direction, types);
+        return Batches.run(api, Arrays.stream(rels).iterator(), new Batches.Config(conf, 10_000), (batch) -> {
+            Node newNode = api.getNodeById(targetId);
+            for (Long id : batch) {
+                Relationship rel = api.getRelationshipById(id);
+                Node start = sources.contains(rel.getStartNode().getId()) ? newNode : rel.getStartNode();
+                Node end = sources.contains(rel.getEndNode().getId()) ? newNode : rel.getEndNode();
+                rewrite(rel, start, end, rel.getType());
+            }
+            return batch.size();
+        });
+    }
+
+    /**
+     * Reads all ids before the first batch commits, the batches rewrite the relationship chains of these nodes.
+     */
+    private static long[] relationshipIds(List<Node> nodes, Set<Long> sources, Direction direction, RelationshipType[] types) {
+        long[] ids = new long[16];
+        int count = 0;
+        try (PrimitiveLongSet seen = Primitive.longSet()) {
+            for (Node node : nodes) {
+                if (!sources.contains(node.getId())) continue;
+                // no types means all of them, an empty array would match none
+                for (Relationship rel : types.length == 0 ? node.getRelationships(direction) : node.getRelationships(direction, types)) {
+                    if (!seen.add(rel.getId())) continue;
+                    if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+                    ids[count++] = rel.getId();
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private Relationship rewrite(Relationship rel, Node start, Node end, RelationshipType type) {
+        Relationship newRel = copyProperties(rel, start.createRelationshipTo(end, type));
+        rel.delete();
+        return newRel;
+    }
+
     private Node mergeNodes(Node source, Node target, boolean delete) {
         copyRelationships(source, copyProperties(source, copyLabels(source, target)), delete);
         if (delete) source.delete();
@@ -143,6 +351,34 @@ public class GraphRefactoring {
         return target;
     }
 
+    /**
+     * Deletes relationships with the same type, direction and other node, properties missing on the kept relationship are copied over.
+     * @return the number of deleted relationships
+     */
+    private long collapseRelationships(Node node) {
+        long count = 0;
+        Map<List<Object>, Relationship> seen = new HashMap<>();
+        for (Relationship rel : node.getRelationships()) {
+            boolean outgoing = rel.getStartNode().equals(node);
+            List<Object> key = Arrays.asList(rel.getType().name(), outgoing, rel.getOtherNode(node).getId());
+            Relationship kept = seen.putIfAbsent(key, rel);
+            if (kept == null) continue;
+            for (Map.Entry<String, Object> prop : rel.getAllProperties().entrySet()) {
+                if (!kept.hasProperty(prop.getKey())) kept.setProperty(prop.getKey(), prop.getValue());
+            }
+            rel.delete();
+            count++;
+        }
+        return count;
+    }
+
+    private static Object groupKey(Object value) {
+        if (!value.getClass().isArray()) return value;
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < Array.getLength(value); i++) list.add(Array.get(value, i));
+        return list;
+    }
+
     private Node copyLabels(Node source, Node target) {
         for (Label label : source.getLabels()) target.addLabel(label);
         return target;
@@ -155,7 +391,12 @@ public class GraphRefactoring {
     }
 
     private Relationship copyRelationship(Relationship rel, Node source, Node newSource) {
-        return copyProperties(rel,newSource.createRelationshipTo(rel.getOtherNode(source), rel.getType()));
+        Node other = rel.getOtherNode(source);
+        if (other.equals(source)) other = newSource;
+        Relationship newRel = rel.getStartNode().equals(source)
+                ? newSource.createRelationshipTo(other, rel.getType())
+                : other.createRelationshipTo(newSource, rel.getType());
+        return copyProperties(rel, newRel);
     }
 
 }
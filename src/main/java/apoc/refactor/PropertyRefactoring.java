@@ -0,0 +1,230 @@
+package apoc.refactor;
+
+import apoc.Description;
+import apoc.Pools;
+import apoc.date.Date;
+import org.neo4j.graphdb.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.PerformsWrites;
+import org.neo4j.procedure.Procedure;
+
+import java.lang.reflect.Array;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Property level refactorings over all nodes of a label or relationships of a type, run in batched transactions.
+ */
+public class PropertyRefactoring {
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public GraphDatabaseAPI api;
+
+    @Procedure("apoc.refactor.rename.nodeProperty")
+    @PerformsWrites
+    @Description("apoc.refactor.rename.nodeProperty('Label','oldKey','newKey',{batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - renames the property on all nodes of the label (all nodes if null) in batched transactions")
+    public Stream<BatchRefactorResult> renameNodeProperty(@Name("label") String label, @Name("oldKey") String oldKey, @Name("newKey") String newKey, @Name("config") Map<String, Object> config) {
+        ResourceIterator<Node> nodes = nodes(label);
+        return Batches.run(api, ids(nodes, n -> n.hasProperty(oldKey)), new Batches.Config(config, DEFAULT_BATCH_SIZE),
+                (batch) -> rename(batch, api::getNodeById, oldKey, newKey)).onClose(nodes::close);
+    }
+
+    @Procedure("apoc.refactor.rename.typeProperty")
+    @PerformsWrites
+    @Description("apoc.refactor.rename.typeProperty('TYPE','oldKey','newKey',{batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - renames the property on all relationships of the type (all relationships if null) in batched transactions")
+    public Stream<BatchRefactorResult> renameTypeProperty(@Name("type") String type, @Name("oldKey") String oldKey, @Name("newKey") String newKey, @Name("config") Map<String, Object> config) {
+        ResourceIterator<Relationship> rels = db.getAllRelationships().iterator();
+        return Batches.run(api, ids(rels, r -> isType(r, type) && r.hasProperty(oldKey)), new Batches.Config(config, DEFAULT_BATCH_SIZE),
+                (batch) -> rename(batch, api::getRelationshipById, oldKey, newKey)).onClose(rels::close);
+    }
+
+    @Procedure("apoc.refactor.convert.nodeProperty")
+    @PerformsWrites
+    @Description("apoc.refactor.convert.nodeProperty('Label','key','INTEGER|FLOAT|BOOLEAN|STRING|DATE',{format:'yyyy-MM-dd HH:mm:ss',batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - converts the property values of all nodes of the label, DATE parses strings with the format to epoch millis, values that can't be converted are kept")
+    public Stream<BatchRefactorResult> convertNodeProperty(@Name("label") String label, @Name("key") String key, @Name("type") String type, @Name("config") Map<String, Object> config) {
+        Converter converter = new Converter(type, config);
+        ResourceIterator<Node> nodes = nodes(label);
+        return Batches.run(api, ids(nodes, n -> n.hasProperty(key)), new Batches.Config(config, DEFAULT_BATCH_SIZE),
+                (batch) -> convert(batch, api::getNodeById, key, converter)).onClose(nodes::close);
+    }
+
+    @Procedure("apoc.refactor.convert.typeProperty")
+    @PerformsWrites
+    @Description("apoc.refactor.convert.typeProperty('TYPE','key','INTEGER|FLOAT|BOOLEAN|STRING|DATE',{format:'yyyy-MM-dd HH:mm:ss',batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - converts the property values of all relationships of the type, DATE parses strings with the format to epoch millis, values that can't be converted are kept")
+    public Stream<BatchRefactorResult> convertTypeProperty(@Name("type") String type, @Name("key") String key, @Name("targetType") String targetType, @Name("config") Map<String, Object> config) {
+        Converter converter = new Converter(targetType, config);
+        ResourceIterator<Relationship> rels = db.getAllRelationships().iterator();
+        return Batches.run(api, ids(rels, r -> isType(r, type) && r.hasProperty(key)), new Batches.Config(config, DEFAULT_BATCH_SIZE),
+                (batch) -> convert(batch, api::getRelationshipById, key, converter)).onClose(rels::close);
+    }
+
+    /**
+     * Replaces a property by a relationship to a category node per distinct value.
+     * The category nodes are looked up or created up front in a single transaction, so parallel batches only link to them.
+     */
+    @Procedure
+    @PerformsWrites
+    @Description("apoc.refactor.categorize('Label','sourceKey','REL_TYPE',outgoing,'Category','targetKey',{keepProperty:false,batchSize:10000,parallel:1}) YIELD batch, items, operations, total, failed, time, error - extracts the property values of the nodes into one category node per distinct value and links the nodes to it")
+    public Stream<BatchRefactorResult> categorize(@Name("label") String label, @Name("sourceKey") String sourceKey, @Name("relType") String relType,
+                                                  @Name("outgoing") boolean outgoing, @Name("categoryLabel") String categoryLabel, @Name("targetKey") String targetKey,
+                                                  @Name("config") Map<String, Object> config) {
+        boolean keepProperty = config != null && Boolean.TRUE.equals(config.get("keepProperty"));
+        List<Long> ids = new ArrayList<>();
+        Map<Object, Object> values = new LinkedHashMap<>();
+        try (ResourceIterator<Node> nodes = nodes(label)) {
+            while (nodes.hasNext()) {
+                Node node = nodes.next();
+                Object value = node.getProperty(sourceKey, null);
+                if (value == null) continue;
+                ids.add(node.getId());
+                values.putIfAbsent(categoryKey(value), value);
+            }
+        }
+        Map<Object, Long> categories = createCategories(values, Label.label(categoryLabel), targetKey);
+        RelationshipType type = RelationshipType.withName(relType);
+        return Batches.run(api, ids.iterator(), new Batches.Config(config, DEFAULT_BATCH_SIZE), (batch) -> {
+            long operations = 0;
+            for (Long id : batch) {
+                Node node = api.getNodeById(id);
+                Object value = node.getProperty(sourceKey, null);
+                Long categoryId = value == null ? null : categories.get(categoryKey(value));
+                if (categoryId == null) continue;
+                if (!keepProperty) node.removeProperty(sourceKey);
+                Node category = api.getNodeById(categoryId);
+                if (outgoing) node.createRelationshipTo(category, type);
+                else category.createRelationshipTo(node, type);
+                operations++;
+            }
+            return operations;
+        });
+    }
+
+    /**
+     * Array properties compare by identity, so they are keyed by the list of their elements.
+     */
+    private static Object categoryKey(Object value) {
+        if (!value.getClass().isArray()) return value;
+        int length = Array.getLength(value);
+        List<Object> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) elements.add(Array.get(value, i));
+        return elements;
+    }
+
+    /**
+     * @param values the property values by their {@link #categoryKey(Object)}
+     * @return the category node ids by the key of their value
+     */
+    private Map<Object, Long> createCategories(Map<Object, Object> values, Label label, String key) {
+        try {
+            return Pools.DEFAULT.submit(() -> {
+                Map<Object, Long> categories = new HashMap<>(values.size() * 4 / 3 + 1);
+                try (Transaction tx = api.beginTx()) {
+                    for (Map.Entry<Object, Object> value : values.entrySet()) {
+                        Node category = api.findNode(label, key, value.getValue());
+                        if (category == null) {
+                            category = api.createNode(label);
+                            category.setProperty(key, value.getValue());
+                        }
+                        categories.put(value.getKey(), category.getId());
+                    }
+                    tx.success();
+                }
+                return categories;
+            }).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Error creating category nodes: " + e.getMessage(), e);
+        }
+    }
+
+    private static long rename(List<Long> batch, Function<Long, PropertyContainer> lookup, String oldKey, String newKey) {
+        long operations = 0;
+        for (Long id : batch) {
+            PropertyContainer pc = lookup.apply(id);
+            Object value = pc.removeProperty(oldKey);
+            if (value == null) continue;
+            pc.setProperty(newKey, value);
+            operations++;
+        }
+        return operations;
+    }
+
+    private static long convert(List<Long> batch, Function<Long, PropertyContainer> lookup, String key, Converter converter) {
+        long operations = 0;
+        DateFormat format = converter.format();
+        for (Long id : batch) {
+            PropertyContainer pc = lookup.apply(id);
+            Object value = pc.getProperty(key, null);
+            Object converted = converter.convert(value, format);
+            if (converted == null || converted.equals(value)) continue;
+            pc.setProperty(key, converted);
+            operations++;
+        }
+        return operations;
+    }
+
+    private ResourceIterator<Node> nodes(String label) {
+        return label == null ? db.getAllNodes().iterator() : db.findNodes(Label.label(label));
+    }
+
+    private static boolean isType(Relationship rel, String type) {
+        return type == null || rel.getType().name().equals(type);
+    }
+
+    private static <T extends PropertyContainer> Iterator<Long> ids(Iterator<T> entities, Predicate<T> filter) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(entities, Spliterator.ORDERED), false)
+                .filter(filter).map(pc -> pc instanceof Node ? ((Node) pc).getId() : ((Relationship) pc).getId()).iterator();
+    }
+
+    static class Converter {
+        final String type;
+        final String pattern;
+
+        Converter(String type, Map<String, Object> config) {
+            this.type = type.toUpperCase();
+            if (!Arrays.asList("INTEGER", "FLOAT", "BOOLEAN", "STRING", "DATE").contains(this.type)) {
+                throw new RuntimeException("Unsupported target type " + type + ", use one of INTEGER, FLOAT, BOOLEAN, STRING, DATE");
+            }
+            this.pattern = config == null ? null : (String) config.get("format");
+        }
+
+        DateFormat format() {
+            return type.equals("DATE") ? Date.dateFormat(pattern) : null;
+        }
+
+        /**
+         * @return the converted value or null if it can't be converted
+         */
+        Object convert(Object value, DateFormat format) {
+            if (value == null) return null;
+            String text = value.toString().trim();
+            try {
+                switch (type) {
+                    case "INTEGER": return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(text);
+                    case "FLOAT": return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(text);
+                    case "BOOLEAN":
+                        if (value instanceof Boolean) return value;
+                        if (value instanceof Number) return ((Number) value).longValue() != 0;
+                        return text.equalsIgnoreCase("true") ? Boolean.TRUE : text.equalsIgnoreCase("false") ? Boolean.FALSE : null;
+                    case "STRING": return value.getClass().isArray() ? null : value.toString();
+                    case "DATE": return value instanceof Number ? ((Number) value).longValue() : format.parse(text).getTime();
+                    default: throw new IllegalArgumentException("Unsupported target type " + type);
+                }
+            } catch (NumberFormatException | ParseException e) {
+                return null;
+            }
+        }
+    }
+}
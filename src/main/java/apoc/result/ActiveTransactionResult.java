@@ -0,0 +1,25 @@
+package apoc.result;
+
+public class ActiveTransactionResult {
+
+    public String type;
+
+    public long startTime;
+
+    public long ageMillis;
+
+    public boolean hasChanges;
+
+    public boolean terminated;
+
+    public boolean current;
+
+    public ActiveTransactionResult(String type, long startTime, long ageMillis, boolean hasChanges, boolean terminated, boolean current) {
+        this.type = type;
+        this.startTime = startTime;
+        this.ageMillis = ageMillis;
+        this.hasChanges = hasChanges;
+        this.terminated = terminated;
+        this.current = current;
+    }
+}
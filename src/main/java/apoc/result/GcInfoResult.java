@@ -0,0 +1,23 @@
+package apoc.result;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+public class GcInfoResult {
+
+    public String name;
+
+    public long count;
+
+    public long timeMillis;
+
+    public List<String> pools;
+
+    public GcInfoResult(GarbageCollectorMXBean collector) {
+        this.name = collector.getName();
+        this.count = collector.getCollectionCount();
+        this.timeMillis = collector.getCollectionTime();
+        this.pools = Arrays.asList(collector.getMemoryPoolNames());
+    }
+}
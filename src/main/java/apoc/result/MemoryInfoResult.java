@@ -0,0 +1,38 @@
+package apoc.result;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+public class MemoryInfoResult {
+
+    public long heapUsed;
+
+    public long heapCommitted;
+
+    public long heapMax;
+
+    public long nonHeapUsed;
+
+    public long nonHeapCommitted;
+
+    public long objectsPendingFinalization;
+
+    public long gcCount;
+
+    public long gcTimeMillis;
+
+    public MemoryInfoResult(MemoryMXBean memory, List<GarbageCollectorMXBean> collectors) {
+        this.heapUsed = memory.getHeapMemoryUsage().getUsed();
+        this.heapCommitted = memory.getHeapMemoryUsage().getCommitted();
+        this.heapMax = memory.getHeapMemoryUsage().getMax();
+        this.nonHeapUsed = memory.getNonHeapMemoryUsage().getUsed();
+        this.nonHeapCommitted = memory.getNonHeapMemoryUsage().getCommitted();
+        this.objectsPendingFinalization = memory.getObjectPendingFinalizationCount();
+        for (GarbageCollectorMXBean collector : collectors) {
+            // -1 if the collector doesn't report it
+            this.gcCount += Math.max(0, collector.getCollectionCount());
+            this.gcTimeMillis += Math.max(0, collector.getCollectionTime());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package apoc.result;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a sampled metric over a window, for counters min, max and percentiles are over the per second rates
+ * between consecutive samples, for gauges over the sampled values.
+ */
+public class MetricStatsResult {
+
+    public String name;
+
+    public boolean counter;
+
+    public long window;
+
+    public long samples;
+
+    public long value;
+
+    public long delta;
+
+    public double rate;
+
+    public double min;
+
+    public double max;
+
+    public double p50;
+
+    public double p90;
+
+    public double p99;
+
+    /**
+     * @param window in seconds
+     * @param times the sample times in ms, oldest first
+     * @param values the sampled values at these times
+     */
+    public MetricStatsResult(String name, boolean counter, long window, long[] times, long[] values) {
+        this.name = name;
+        this.counter = counter;
+        this.window = window;
+        this.samples = values.length;
+        int last = values.length - 1;
+        this.value = last < 0 ? 0 : values[last];
+        this.delta = last < 1 ? 0 : values[last] - values[0];
+        this.rate = last < 1 ? 0 : perSecond(delta, times[last] - times[0]);
+        double[] series;
+        if (counter) {
+            series = new double[Math.max(0, last)];
+            for (int i = 0; i < series.length; i++) series[i] = perSecond(values[i + 1] - values[i], times[i + 1] - times[i]);
+        } else {
+            series = new double[values.length];
+            for (int i = 0; i < series.length; i++) series[i] = values[i];
+        }
+        Arrays.sort(series);
+        this.min = series.length == 0 ? 0 : series[0];
+        this.max = series.length == 0 ? 0 : series[series.length - 1];
+        this.p50 = percentile(series, 0.5);
+        this.p90 = percentile(series, 0.9);
+        this.p99 = percentile(series, 0.99);
+    }
+
+    private static double perSecond(long delta, long millis) {
+        return millis <= 0 ? 0 : delta * 1000d / millis;
+    }
+
+    /**
+     * Nearest rank percentile of a sorted series.
+     */
+    public static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
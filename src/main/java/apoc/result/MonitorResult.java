@@ -0,0 +1,65 @@
+package apoc.result;
+
+/**
+ * The results of all <code>apoc.monitor.*</code> procedures combined in one row.
+ */
+public class MonitorResult {
+
+    public long nodeIds;
+    public long relIds;
+    public long propIds;
+    public long relTypeIds;
+
+    public Boolean readOnly;
+    public String kernelVersion;
+    public String storeId;
+    public String kernelStartTime;
+    public String databaseName;
+    public long storeLogVersion;
+    public String storeCreationDate;
+
+    public long logSize;
+    public long stringStoreSize;
+    public long arrayStoreSize;
+    public long relStoreSize;
+    public long propStoreSize;
+    public long totalStoreSize;
+    public long nodeStoreSize;
+
+    public long rolledBackTx;
+    public long peakTx;
+    public long lastTxId;
+    public long currentOpenedTx;
+    public long totalOpenedTx;
+    public long totalTx;
+
+    public MonitorResult(IdsResult ids, KernelInfoResult kernel, StoreInfoResult store, TransactionInfoResult tx) {
+        this.nodeIds = ids.nodeIds;
+        this.relIds = ids.relIds;
+        this.propIds = ids.propIds;
+        this.relTypeIds = ids.relTypeIds;
+
+        this.readOnly = kernel.readOnly;
+        this.kernelVersion = kernel.kernelVersion;
+        this.storeId = kernel.storeId;
+        this.kernelStartTime = kernel.kernelStartTime;
+        this.databaseName = kernel.databaseName;
+        this.storeLogVersion = kernel.storeLogVersion;
+        this.storeCreationDate = kernel.storeCreationDate;
+
+        this.logSize = store.logSize;
+        this.stringStoreSize = store.stringStoreSize;
+        this.arrayStoreSize = store.arrayStoreSize;
+        this.relStoreSize = store.relStoreSize;
+        this.propStoreSize = store.propStoreSize;
+        this.totalStoreSize = store.totalStoreSize;
+        this.nodeStoreSize = store.nodeStoreSize;
+
+        this.rolledBackTx = tx.rolledBackTx;
+        this.peakTx = tx.peakTx;
+        this.lastTxId = tx.lastTxId;
+        this.currentOpenedTx = tx.currentOpenedTx;
+        this.totalOpenedTx = tx.totalOpenedTx;
+        this.totalTx = tx.totalTx;
+    }
+}
@@ -0,0 +1,50 @@
+package apoc.result;
+
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+
+public class PageCacheInfoResult {
+
+    public long pageSize;
+
+    public long maxPages;
+
+    public long pins;
+
+    public long hits;
+
+    public long faults;
+
+    public double hitRatio;
+
+    public long evictions;
+
+    public long evictionExceptions;
+
+    public long flushes;
+
+    public long bytesRead;
+
+    public long bytesWritten;
+
+    public long filesMapped;
+
+    public long filesUnmapped;
+
+    public PageCacheInfoResult(long pageSize, long maxPages, PageCacheCounters counters) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pins = counters.pins();
+        this.faults = counters.faults();
+        // the default tracer of this version doesn't count pins, then hits are unknown
+        boolean pinsCounted = pins > 0 && pins >= faults;
+        this.hits = pinsCounted ? pins - faults : -1;
+        this.hitRatio = pinsCounted ? (double) hits / pins : -1;
+        this.evictions = counters.evictions();
+        this.evictionExceptions = counters.evictionExceptions();
+        this.flushes = counters.flushes();
+        this.bytesRead = counters.bytesRead();
+        this.bytesWritten = counters.bytesWritten();
+        this.filesMapped = counters.filesMapped();
+        this.filesUnmapped = counters.filesUnmapped();
+    }
+}
@@ -0,0 +1,43 @@
+package apoc.result;
+
+public class ProcedureStatsResult {
+
+    public String name;
+
+    public long calls;
+
+    public long errors;
+
+    public long rows;
+
+    public double meanMillis;
+
+    public double p50Millis;
+
+    public double p90Millis;
+
+    public double p99Millis;
+
+    public double maxMillis;
+
+    public long p50Rows;
+
+    public long p99Rows;
+
+    public long maxRows;
+
+    public ProcedureStatsResult(String name, long calls, long errors, long rows, double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis, long p50Rows, long p99Rows, long maxRows) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.p50Rows = p50Rows;
+        this.p99Rows = p99Rows;
+        this.maxRows = maxRows;
+    }
+}
@@ -0,0 +1,47 @@
+package apoc.result;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profile of a property over the examined nodes of a label, <code>distinct</code> is an estimate.
+ */
+public class PropertyProfileResult {
+
+    public String label;
+
+    public String property;
+
+    public long nodes;
+
+    public long sampled;
+
+    public long count;
+
+    public double nullRatio;
+
+    public Map<String, Object> types;
+
+    public Object min;
+
+    public Object max;
+
+    public long distinct;
+
+    public List<Object> sample;
+
+    public PropertyProfileResult(String label, String property, long nodes, long sampled, long count, double nullRatio,
+                                 Map<String, Object> types, Object min, Object max, long distinct, List<Object> sample) {
+        this.label = label;
+        this.property = property;
+        this.nodes = nodes;
+        this.sampled = sampled;
+        this.count = count;
+        this.nullRatio = nullRatio;
+        this.types = types;
+        this.min = min;
+        this.max = max;
+        this.distinct = distinct;
+        this.sample = sample;
+    }
+}
@@ -0,0 +1,36 @@
+package apoc.result;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class ThreadPoolInfoResult {
+
+    public String name;
+
+    public long poolSize;
+
+    public long maxPoolSize;
+
+    public long activeThreads;
+
+    public long queueSize;
+
+    public long queueRemainingCapacity;
+
+    public long taskCount;
+
+    public long completedTaskCount;
+
+    public long largestPoolSize;
+
+    public ThreadPoolInfoResult(String name, ThreadPoolExecutor pool) {
+        this.name = name;
+        this.poolSize = pool.getPoolSize();
+        this.maxPoolSize = pool.getMaximumPoolSize();
+        this.activeThreads = pool.getActiveCount();
+        this.queueSize = pool.getQueue().size();
+        this.queueRemainingCapacity = pool.getQueue().remainingCapacity();
+        this.taskCount = pool.getTaskCount();
+        this.completedTaskCount = pool.getCompletedTaskCount();
+        this.largestPoolSize = pool.getLargestPoolSize();
+    }
+}
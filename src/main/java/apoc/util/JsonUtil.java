@@ -0,0 +1,218 @@
+package apoc.util;
+
+import apoc.convert.Json;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming access to JSON documents, only the value currently emitted is materialized.
+ * Supports a single document, a top-level array, newline delimited JSON (a sequence of root values)
+ * and a simple path like <code>$.data.items</code> or <code>result[0].rows</code> into each root value.
+ */
+public class JsonUtil {
+
+    public static Stream<Object> stream(String url, String path, boolean arrayRequired) {
+        try {
+            JsonParser parser = Json.OBJECT_MAPPER.getJsonFactory().createJsonParser(Util.openInputStream(url));
+            JsonIterator iterator = new JsonIterator(Json.OBJECT_MAPPER, parser, parsePath(path), arrayRequired);
+            Spliterator<Object> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+            return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read url " + url + " as json", e);
+        }
+    }
+
+    /**
+     * @return path segments, Strings for object fields and Integers for array indexes, empty for the root
+     */
+    public static List<Object> parsePath(String path) {
+        if (path == null) return Collections.emptyList();
+        String p = path.trim();
+        if (p.startsWith("$")) p = p.substring(1);
+        List<Object> segments = new ArrayList<>();
+        for (String part : p.split("\\.")) {
+            if (part.isEmpty()) continue;
+            int bracket = part.indexOf('[');
+            if (bracket == -1) {
+                segments.add(part);
+                continue;
+            }
+            if (bracket > 0) segments.add(part.substring(0, bracket));
+            while (bracket != -1) {
+                int end = part.indexOf(']', bracket);
+                if (end == -1) throw new IllegalArgumentException("Unbalanced brackets in json path " + path);
+                segments.add(Integer.parseInt(part.substring(bracket + 1, end).trim()));
+                bracket = part.indexOf('[', end);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Parses only the value at the given path of the JSON document.
+     * @return the value or null if the path doesn't exist
+     */
+    public static Object readPath(String json, List<Object> path) {
+        try (JsonParser parser = Json.OBJECT_MAPPER.getJsonFactory().createJsonParser(json)) {
+            if (parser.nextToken() == null || !navigate(parser, path)) return null;
+            return Json.OBJECT_MAPPER.readValue(parser, Object.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read json " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Follows the path through already decoded maps and lists.
+     * @return the value or null if the path doesn't exist
+     */
+    public static Object valueAt(Object value, List<Object> path) {
+        for (Object segment : path) {
+            if (segment instanceof String && value instanceof Map) {
+                value = ((Map<?, ?>) value).get(segment);
+            } else if (segment instanceof Integer && value instanceof List) {
+                int index = (Integer) segment;
+                List<?> list = (List<?>) value;
+                value = index >= 0 && index < list.size() ? list.get(index) : null;
+            } else {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Moves the parser from the current value to the value at the given path.
+     * @return false if the path doesn't exist, the parser is left somewhere inside of the current value then
+     */
+    public static boolean navigate(JsonParser parser, List<Object> path) throws IOException {
+        for (Object segment : path) {
+            JsonToken token = parser.getCurrentToken();
+            if (segment instanceof String) {
+                if (token != JsonToken.START_OBJECT) return false;
+                boolean found = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if (name.equals(segment)) {
+                        found = true;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+                if (!found) return false;
+            } else {
+                if (token != JsonToken.START_ARRAY) return false;
+                int index = (Integer) segment, pos = 0;
+                boolean found = false;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (pos++ == index) {
+                        found = true;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+                if (!found) return false;
+            }
+        }
+        return true;
+    }
+
+    private static class JsonIterator implements Iterator<Object> {
+        private static final Object END = new Object();
+
+        private final ObjectMapper mapper;
+        private final JsonParser parser;
+        private final List<Object> path;
+        private final boolean arrayRequired;
+        private boolean inArray;
+        private boolean fetched;
+        private Object next;
+
+        JsonIterator(ObjectMapper mapper, JsonParser parser, List<Object> path, boolean arrayRequired) {
+            this.mapper = mapper;
+            this.parser = parser;
+            this.path = path;
+            this.arrayRequired = arrayRequired;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!fetched) {
+                next = advance();
+                fetched = true;
+            }
+            return next != END;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            fetched = false;
+            return next;
+        }
+
+        private Object advance() {
+            try {
+                while (true) {
+                    if (inArray) {
+                        if (parser.nextToken() != JsonToken.END_ARRAY) {
+                            return mapper.readValue(parser, Object.class);
+                        }
+                        inArray = false;
+                        skipToRoot();
+                        continue;
+                    }
+                    if (parser.nextToken() == null) {
+                        close();
+                        return END;
+                    }
+                    if (!navigate(parser, path)) {
+                        skipToRoot();
+                        continue;
+                    }
+                    if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                        inArray = true;
+                        continue;
+                    }
+                    if (arrayRequired) {
+                        throw new RuntimeException("Incompatible Type " + parser.getCurrentToken() + " expected an array");
+                    }
+                    Object value = mapper.readValue(parser, Object.class);
+                    skipToRoot();
+                    return value;
+                }
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException("Can't read json " + e.getMessage(), e);
+            }
+        }
+
+        private void skipToRoot() throws IOException {
+            while (!parser.getParsingContext().inRoot()) {
+                if (parser.nextToken() == null) return;
+                parser.skipChildren();
+            }
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
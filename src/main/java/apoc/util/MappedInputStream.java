@@ -0,0 +1,55 @@
+package apoc.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a region of a file through memory mapped windows, so large files are read without copying them through the heap.
+ * The channel is not closed by this stream.
+ */
+public class MappedInputStream extends InputStream {
+
+    private static final long WINDOW = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private MappedByteBuffer buffer;
+
+    public MappedInputStream(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureMapped()) return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (!ensureMapped()) return -1;
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    private boolean ensureMapped() throws IOException {
+        if (buffer != null && buffer.hasRemaining()) return true;
+        if (position >= end) return false;
+        long size = Math.min(WINDOW, end - position);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        position += size;
+        return true;
+    }
+}
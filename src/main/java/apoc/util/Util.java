@@ -0,0 +1,32 @@
+package apoc.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared helpers for procedures that read external resources.
+ */
+public class Util {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Opens the url for reading, transparently decompressing gzip content (".gz" suffix or gzip content-encoding).
+     */
+    public static InputStream openInputStream(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        InputStream in = connection.getInputStream();
+        if (isGzip(url, connection.getContentEncoding())) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return new BufferedInputStream(in, BUFFER_SIZE);
+    }
+
+    public static boolean isGzip(String url, String contentEncoding) {
+        return url.endsWith(".gz") || url.endsWith(".gzip") || "gzip".equalsIgnoreCase(contentEncoding);
+    }
+}
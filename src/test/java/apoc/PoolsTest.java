@@ -0,0 +1,35 @@
+package apoc;
+
+import org.junit.After;
+import org.junit.Test;
+import org.neo4j.logging.FormattedLog;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PoolsTest {
+
+    @After public void tearDown() {
+        ApocConfiguration.initialize(Collections.emptyMap());
+    }
+
+    @Test public void testInvalidSettingsAreReportedNotThrown() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put("apoc.pools.batch.size", "many");
+        config.put("apoc.pools.background.size", "0");
+        config.put("apoc.pools.scheduled.size", "2");
+        ApocConfiguration.initialize(config);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Pools.validate(FormattedLog.toOutputStream(out));
+        String log = out.toString();
+        assertTrue(log, log.contains("apoc.pools.batch.size must be an integer but was many, using the default"));
+        assertTrue(log, log.contains("apoc.pools.background.size must be positive, using the default"));
+        assertEquals(log, 2, log.split("\n").length);
+        assertTrue(Pools.DEFAULT.submit(() -> true).get());
+    }
+}
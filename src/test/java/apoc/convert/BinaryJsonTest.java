@@ -0,0 +1,50 @@
+package apoc.convert;
+
+import apoc.util.JsonUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.map;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class BinaryJsonTest {
+
+    private final Map<String, Object> document = map(
+            "name", "Ünïcode",
+            "count", -42L,
+            "big", Long.MAX_VALUE,
+            "ratio", 0.5d,
+            "flags", asList(true, false, null),
+            "nested", map("items", asList(map("id", 1L), map("id", 2L)), "empty", map()));
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] encoded = BinaryJson.encode(document);
+        assertTrue(BinaryJson.isEncoded(encoded));
+        assertEquals(document, BinaryJson.decode(encoded));
+    }
+
+    @Test
+    public void testArraysAndScalars() throws Exception {
+        assertEquals(asList(1L, 2L), BinaryJson.decode(BinaryJson.encode(new long[]{1, 2})));
+        assertEquals(asList("a", "b"), BinaryJson.decode(BinaryJson.encode(new String[]{"a", "b"})));
+        assertEquals("x", BinaryJson.decode(BinaryJson.encode("x")));
+        assertNull(BinaryJson.decode(BinaryJson.encode(null)));
+        assertFalse(BinaryJson.isEncoded("{}".getBytes()));
+    }
+
+    @Test
+    public void testDecodePath() throws Exception {
+        byte[] encoded = BinaryJson.encode(document);
+        assertEquals(2L, BinaryJson.decode(encoded, JsonUtil.parsePath("$.nested.items[1].id")));
+        assertEquals(map("id", 1L), BinaryJson.decode(encoded, JsonUtil.parsePath("nested.items[0]")));
+        assertEquals(-42L, BinaryJson.decode(encoded, JsonUtil.parsePath("count")));
+        assertNull(BinaryJson.decode(encoded, JsonUtil.parsePath("nested.items[2]")));
+        assertNull(BinaryJson.decode(encoded, JsonUtil.parsePath("missing.key")));
+        assertNull(BinaryJson.decode(encoded, JsonUtil.parsePath("name.key")));
+    }
+}
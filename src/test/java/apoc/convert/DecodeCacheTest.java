@@ -0,0 +1,84 @@
+package apoc.convert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.*;
+
+public class DecodeCacheTest {
+
+    private GraphDatabaseAPI db;
+    private final AtomicInteger decoded = new AtomicInteger();
+    private final Function<Object, Object> decoder = (raw) -> {
+        decoded.incrementAndGet();
+        return singletonMap("a", asList(raw, 2));
+    };
+
+    @Before public void setUp() throws Exception {
+        db = (GraphDatabaseAPI) new TestGraphDatabaseFactory().newImpermanentDatabase();
+    }
+
+    @After public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test public void testCachedWithinTransaction() throws Exception {
+        try (Transaction tx = db.beginTx()) {
+            Object first = DecodeCache.get(kernelTransaction(), 1, "json", "x", decoder);
+            assertSame(first, DecodeCache.get(kernelTransaction(), 1, "json", "x", decoder));
+            assertSame(first, DecodeCache.peek(kernelTransaction(), 1, "json", "x"));
+            assertEquals(1, decoded.get());
+            DecodeCache.get(kernelTransaction(), 1, "json", "y", decoder);
+            assertEquals(2, decoded.get());
+            assertNull(DecodeCache.peek(kernelTransaction(), 1, "json", "x"));
+            tx.success();
+        }
+    }
+
+    @Test public void testNotSharedWithNextTransaction() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            try (Transaction tx = db.beginTx()) {
+                assertNull(DecodeCache.peek(kernelTransaction(), 1, "json", "x"));
+                DecodeCache.get(kernelTransaction(), 1, "json", "x", decoder);
+                Node node = db.createNode();
+                node.setProperty("i", i);
+                tx.success();
+            }
+        }
+        assertEquals(3, decoded.get());
+    }
+
+    @Test @SuppressWarnings("unchecked")
+    public void testCachedValuesAreUnmodifiable() throws Exception {
+        try (Transaction tx = db.beginTx()) {
+            Map<String, Object> value = (Map<String, Object>) DecodeCache.get(kernelTransaction(), 1, "json", "x", decoder);
+            try {
+                value.put("b", 1);
+                fail("cached map was modifiable");
+            } catch (UnsupportedOperationException expected) { }
+            try {
+                ((List<Object>) value.get("a")).add(3);
+                fail("cached list was modifiable");
+            } catch (UnsupportedOperationException expected) { }
+            tx.success();
+        }
+    }
+
+    private KernelTransaction kernelTransaction() {
+        return db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class).getKernelTransactionBoundToThisThread(true);
+    }
+}
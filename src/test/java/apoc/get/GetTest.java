@@ -9,7 +9,11 @@ import org.neo4j.graphdb.*;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import static apoc.util.TestUtil.map;
 import static org.junit.Assert.*;
@@ -52,4 +56,70 @@ public class GetTest {
             assertEquals(true, ids.contains(((Relationship) r.next().get("rel")).getId()));
         });
     }
+
+    @Test
+    public void testNodesBulkOrderedWithMissing() throws Exception {
+        List<Object> ids = Iterators.asList(db.execute("UNWIND range(0,9) as id CREATE (n:Node {id:id}) return id(n) as id").columnAs("id"));
+        List<Object> query = Arrays.asList(ids.get(7), 12345L, ids.get(2), ids.get(5), ids.get(2));
+        TestUtil.testResult(db, "CALL apoc.get.nodesBulk({ids},{ordered:true,missing:'report',properties:['id'],batchSize:2})", map("ids", query), r -> {
+            for (Object id : query) {
+                Map<String, Object> row = r.next();
+                assertEquals(id, row.get("id"));
+                boolean found = !id.equals(12345L);
+                assertEquals(found, row.get("found"));
+                if (found) {
+                    assertEquals(id, ((Node) row.get("node")).getId());
+                    assertEquals(1, ((Map) row.get("properties")).size());
+                } else {
+                    assertNull(row.get("node"));
+                }
+            }
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test
+    public void testNodesBulkSortedSkipsMissing() throws Exception {
+        List<Object> ids = Iterators.asList(db.execute("UNWIND range(0,4) as id CREATE (n:Node {id:id}) return id(n) as id").columnAs("id"));
+        TestUtil.testResult(db, "CALL apoc.get.nodesBulk({ids},{batchSize:2,parallel:false}) YIELD id, properties RETURN id, properties",
+                map("ids", Arrays.asList(ids.get(3), -1L, ids.get(0), ids.get(4))), r -> {
+            assertEquals(ids.get(0), r.next().get("id"));
+            assertEquals(ids.get(3), r.next().get("id"));
+            Map<String, Object> row = r.next();
+            assertEquals(ids.get(4), row.get("id"));
+            assertNull(row.get("properties"));
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testNodesBulkFailsOnMissing() throws Exception {
+        db.execute("CALL apoc.get.nodesBulk([12345],{missing:'fail'})").close();
+    }
+
+    @Test
+    public void testRelsBulk() throws Exception {
+        List<Object> ids = Iterators.asList(db.execute("CREATE (n) WITH n UNWIND range(0,4) as id CREATE (n)-[r:KNOWS {id:id}]->(n) return id(r) as id").columnAs("id"));
+        TestUtil.testResult(db, "CALL apoc.get.relsBulk({ids},{ordered:true,properties:true,batchSize:1})", map("ids", Arrays.asList(ids.get(4), ids.get(1))), r -> {
+            Map<String, Object> row = r.next();
+            assertEquals(ids.get(4), ((Relationship) row.get("rel")).getId());
+            assertEquals(4L, ((Map) row.get("properties")).get("id"));
+            assertEquals(ids.get(1), ((Relationship) r.next().get("rel")).getId());
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test
+    public void testNodesBulkSeesTransactionState() throws Exception {
+        try (Transaction tx = db.beginTx()) {
+            List<Object> ids = new ArrayList<>();
+            for (int i = 0; i < 5; i++) ids.add(db.createNode().getId());
+            Map<String, Object> params = map("ids", ids);
+            assertEquals(5L, db.execute("CALL apoc.get.nodesBulk({ids},{batchSize:2}) YIELD found WITH found WHERE found RETURN count(*) as c", params).columnAs("c").next());
+            // separate transactions don't see the uncommitted nodes
+            assertEquals(0L, db.execute("CALL apoc.get.nodesBulk({ids},{batchSize:2,parallel:true}) YIELD found WITH found WHERE found RETURN count(*) as c", params).columnAs("c").next());
+            tx.success();
+        }
+        assertEquals(5L, db.execute("MATCH (n) WITH collect(id(n)) as ids CALL apoc.get.nodesBulk(ids,{batchSize:2,parallel:true}) YIELD found WITH found WHERE found RETURN count(*) as c").columnAs("c").next());
+    }
 }
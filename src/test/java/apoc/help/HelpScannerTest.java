@@ -2,6 +2,12 @@ package apoc.help;
 
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
 
 /**
@@ -14,4 +20,85 @@ public class HelpScannerTest {
     public void testScanAll() throws Exception {
         new HelpScanner().scanAll();
     }
+
+    @Test
+    public void testScanFindsApocProcedures() throws Exception {
+        Map<String, HelpResult> procedures = new HelpScanner().scan();
+        assertTrue(procedures.containsKey("apoc.help"));
+        HelpResult commit = procedures.get("apoc.periodic.commit");
+        assertNotNull(commit);
+        assertTrue(commit.writes);
+        assertTrue(commit.text.startsWith("apoc.periodic.commit"));
+    }
+
+    @Test
+    public void testFindByPrefixAndSuffix() throws Exception {
+        Map<String, HelpResult> procedures = new TreeMap<>();
+        for (String name : asList("apoc.load.json", "apoc.load.jsonArray", "apoc.convert.toJson", "apoc.get.nodes", "apoc.lock.nodes")) {
+            procedures.put(name, new HelpResult(name, name, false));
+        }
+        HelpScanner.Index index = new HelpScanner.Index(procedures);
+        assertEquals(asList("apoc.load.json", "apoc.load.jsonArray"), names(index, "apoc.load."));
+        assertEquals(asList("apoc.get.nodes", "apoc.lock.nodes"), names(index, "nodes"));
+        assertEquals(asList("apoc.load.json"), names(index, "apoc.load.json".substring(4)));
+        assertEquals(asList("apoc.convert.toJson", "apoc.get.nodes", "apoc.load.json", "apoc.load.jsonArray", "apoc.lock.nodes"), names(index, "apoc"));
+        assertEquals(asList(), names(index, "json."));
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        assertEquals(asList("apoc.periodic.commit", "apoc.periodic.commitCursor"),
+                HelpScanner.find("apoc.periodic.commit").map(h -> h.name).collect(Collectors.toList()));
+        assertEquals(0, HelpScanner.find(null).count());
+    }
+
+    @Test
+    public void testSignature() throws Exception {
+        HelpResult json = new HelpScanner().scan().get("apoc.load.json");
+        assertEquals("apoc.load.json(url :: String) :: MapResult", json.signature);
+        HelpResult lock = new HelpScanner().scan().get("apoc.lock.nodes");
+        assertEquals("apoc.lock.nodes(nodes :: List) :: VOID", lock.signature);
+    }
+
+    @Test
+    public void testTextSearch() throws Exception {
+        Map<String, HelpResult> procedures = new TreeMap<>();
+        procedures.put("apoc.index.nodes", new HelpResult("apoc.index.nodes", "apoc.index.nodes('Label','prop:value*') YIELD node - lucene query on node index with the given label name", false, "apoc.index.nodes(label :: String, query :: String) :: NodeResult"));
+        procedures.put("apoc.index.addNode", new HelpResult("apoc.index.addNode", "apoc.index.addNode(node,['prop1',...]) add node to an index for each label it has", true, "apoc.index.addNode(node :: Node, properties :: List) :: VOID"));
+        procedures.put("apoc.load.json", new HelpResult("apoc.load.json", "load from JSON URL (e.g. web-api) to import JSON as stream of values", false, "apoc.load.json(url :: String) :: MapResult"));
+        procedures.put("apoc.create.node", new HelpResult("apoc.create.node", "create node with dynamic labels", true, "apoc.create.node(label :: List, props :: Map) :: NodeResult"));
+        TextIndex index = new TextIndex(procedures.values());
+
+        assertEquals(asList("apoc.index.addNode", "apoc.index.nodes"), search(index, "anything about index"));
+        assertEquals(asList("apoc.create.node", "apoc.index.addNode"), search(index, "procedures that write"));
+        // matching both terms ranks first
+        assertEquals("apoc.index.addNode", search(index, "write index").get(0));
+        assertEquals(asList("apoc.load.json"), search(index, "url"));
+        assertEquals("apoc.load.json", search(index, "JSON values").get(0));
+        // prefix of a term
+        assertEquals(asList("apoc.create.node"), search(index, "dyn"));
+        assertEquals(asList(), search(index, "the"));
+    }
+
+    @Test
+    public void testTerms() throws Exception {
+        assertEquals(asList("addnode", "add", "node", "index"), TextIndex.terms("apoc.addNode indexes"));
+        assertEquals("write", TextIndex.stem("writes"));
+        assertEquals("relationship", TextIndex.stem("relationships"));
+        assertEquals("class", TextIndex.stem("class"));
+    }
+
+    @Test
+    public void testFindFallsBackToText() throws Exception {
+        List<String> names = HelpScanner.find("periodic cancel").map(h -> h.name).collect(Collectors.toList());
+        assertEquals("apoc.periodic.cancel", names.get(0));
+    }
+
+    private static List<String> search(TextIndex index, String query) {
+        return index.search(query).map(h -> h.name).collect(Collectors.toList());
+    }
+
+    private static List<String> names(HelpScanner.Index index, String name) {
+        return index.find(name).map(h -> h.name).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,130 @@
+package apoc.lock;
+
+import apoc.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.*;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static apoc.util.TestUtil.map;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class LockTest {
+
+    private GraphDatabaseService db;
+    private ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Before
+    public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, Lock.class);
+        db.execute("CREATE (:A)-[:R]->(:B)").close();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        db.shutdown();
+    }
+
+    @Test
+    public void testTryAllReportsEntitiesLockedByOtherTransaction() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1), done = new CountDownLatch(1);
+        Future<?> holder = holdLocks("MATCH (a:A)-[r]->(b) CALL apoc.lock.all([b,a],[r]) RETURN count(*)", locked, done);
+        locked.await(5, TimeUnit.SECONDS);
+        try {
+            TestUtil.testCall(db, "MATCH (a:A)-[r]->() CALL apoc.lock.tryAll([a],[r],{timeout:50}) YIELD locked, nodes, rels RETURN *", row -> {
+                assertEquals(false, row.get("locked"));
+                assertEquals(1, ((List) row.get("nodes")).size());
+                assertEquals(1, ((List) row.get("rels")).size());
+            });
+        } finally {
+            done.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        TestUtil.testCall(db, "MATCH (a:A)-[r]->() CALL apoc.lock.tryAll([a],[r],{timeout:50}) YIELD locked, nodes, rels RETURN *", row -> {
+            assertEquals(true, row.get("locked"));
+            assertEquals(0, ((List) row.get("nodes")).size());
+        });
+    }
+
+    @Test
+    public void testReadLocksAreShared() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1), done = new CountDownLatch(1);
+        Future<?> holder = holdLocks("MATCH (a:A) CALL apoc.lock.read.nodes([a]) RETURN count(*)", locked, done);
+        locked.await(5, TimeUnit.SECONDS);
+        try {
+            TestUtil.testCall(db, "MATCH (a:A) CALL apoc.lock.tryAll([a],[],{timeout:50,write:false}) YIELD locked RETURN locked",
+                    row -> assertEquals(true, row.get("locked")));
+            TestUtil.testCall(db, "MATCH (a:A) CALL apoc.lock.tryAll([a],[],{timeout:50}) YIELD locked RETURN locked",
+                    row -> assertEquals(false, row.get("locked")));
+        } finally {
+            done.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testLockNodesAndRels() throws Exception {
+        TestUtil.testCall(db, "MATCH (a:A)-[r]->(b) CALL apoc.lock.nodes([b,a,b]) CALL apoc.lock.rels([r]) CALL apoc.lock.read.rels([r]) RETURN count(*) as c",
+                row -> assertEquals(1L, row.get("c")));
+        Node node;
+        try (Transaction tx = db.beginTx()) {
+            node = db.findNodes(Label.label("A")).next();
+            tx.success();
+        }
+        TestUtil.testCall(db, "CALL apoc.lock.tryAll({nodes},null,null) YIELD locked RETURN locked", map("nodes", singletonList(node)),
+                row -> assertEquals(true, row.get("locked")));
+    }
+
+    private Future<?> holdLocks(String statement, CountDownLatch locked, CountDownLatch done) {
+        return executor.submit(() -> {
+            try (Transaction tx = db.beginTx()) {
+                db.execute(statement).close();
+                locked.countDown();
+                done.await(10, TimeUnit.SECONDS);
+                tx.success();
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testNamedLocks() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1), done = new CountDownLatch(1);
+        Future<?> holder = holdLocks("CALL apoc.lock.named(['account:42','account:42']) RETURN count(*)", locked, done);
+        locked.await(5, TimeUnit.SECONDS);
+        try {
+            TestUtil.testCall(db, "CALL apoc.lock.tryNamed(['account:1','account:42'],{timeout:50}) YIELD locked, names RETURN *", row -> {
+                assertEquals(false, row.get("locked"));
+                assertEquals(singletonList("account:42"), row.get("names"));
+            });
+        } finally {
+            done.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        TestUtil.testCall(db, "CALL apoc.lock.tryNamed(['account:42'],{timeout:50}) YIELD locked RETURN locked",
+                row -> assertEquals(true, row.get("locked")));
+    }
+
+    @Test
+    public void testSharedNamedLocks() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1), done = new CountDownLatch(1);
+        Future<?> holder = holdLocks("CALL apoc.lock.read.named(['account:42']) RETURN count(*)", locked, done);
+        locked.await(5, TimeUnit.SECONDS);
+        try {
+            TestUtil.testCall(db, "CALL apoc.lock.tryNamed(['account:42'],{timeout:50,write:false}) YIELD locked RETURN locked",
+                    row -> assertEquals(true, row.get("locked")));
+            TestUtil.testCall(db, "CALL apoc.lock.tryNamed(['account:42'],{timeout:50}) YIELD locked RETURN locked",
+                    row -> assertEquals(false, row.get("locked")));
+        } finally {
+            done.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package apoc.meta;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testSmallCardinalitiesAreExact() throws Exception {
+        HyperLogLog hll = new HyperLogLog();
+        assertEquals(0, hll.estimate());
+        for (int i = 0; i < 100; i++) hll.add("value" + (i % 10));
+        assertEquals(10, hll.estimate());
+    }
+
+    @Test
+    public void testLargeCardinalityWithinError() throws Exception {
+        HyperLogLog hll = new HyperLogLog();
+        int distinct = 200_000;
+        for (int i = 0; i < distinct; i++) {
+            hll.add((long) i);
+            hll.add("" + i);
+        }
+        double error = Math.abs(hll.estimate() - 2.0 * distinct) / (2.0 * distinct);
+        assertTrue("error " + error, error < 0.05);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        HyperLogLog a = new HyperLogLog(), b = new HyperLogLog(), all = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            (i % 2 == 0 ? a : b).add(i);
+            all.add(i);
+        }
+        assertEquals(all.estimate(), a.merge(b).estimate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecision() throws Exception {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+
+    @Test
+    public void testEqualValuesOfDifferentTypes() throws Exception {
+        assertEquals(HyperLogLog.hash(1), HyperLogLog.hash(1L));
+        assertEquals(HyperLogLog.hash(1L), HyperLogLog.hash(1.0));
+        assertNotEquals(HyperLogLog.hash(1.5), HyperLogLog.hash(1L));
+        assertEquals(HyperLogLog.hash(new long[]{1, 2}), HyperLogLog.hash(new int[]{1, 2}));
+        assertNotEquals(HyperLogLog.hash(new long[]{1, 2}), HyperLogLog.hash(new long[]{2, 1}));
+    }
+}
@@ -0,0 +1,129 @@
+package apoc.meta;
+
+import apoc.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.*;
+
+import static apoc.util.TestUtil.testResult;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class MetaProfileTest {
+
+    private GraphDatabaseService db;
+
+    @Before public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, Meta.class);
+    }
+
+    @After public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test public void testProfile() throws Exception {
+        db.execute("UNWIND range(1,5000) AS i CREATE (:Person {id:i, name:'name' + (i % 100), score: CASE WHEN i % 2 = 0 THEN i * 0.5 ELSE i END, " +
+                "nick: CASE WHEN i % 4 = 0 THEN 'n' + i ELSE null END})").close();
+        testResult(db, "CALL apoc.meta.profile({labels:['Person'], sample:-1, values:5, batchSize:300})", (result) -> {
+            Map<String, Map<String, Object>> rows = new HashMap<>();
+            result.forEachRemaining(row -> rows.put((String) row.get("property"), row));
+            assertEquals(new HashSet<>(asList("id", "name", "score", "nick")), rows.keySet());
+
+            Map<String, Object> id = rows.get("id");
+            assertEquals("Person", id.get("label"));
+            assertEquals(5000L, id.get("nodes"));
+            assertEquals(5000L, id.get("sampled"));
+            assertEquals(5000L, id.get("count"));
+            assertEquals(0d, id.get("nullRatio"));
+            assertEquals(Collections.singletonMap("INTEGER", 5000L), id.get("types"));
+            assertEquals(1L, id.get("min"));
+            assertEquals(5000L, id.get("max"));
+            assertEquals(5000, (long) id.get("distinct"), 5000 * 0.05);
+            assertEquals(5, ((List) id.get("sample")).size());
+
+            Map<String, Object> name = rows.get("name");
+            assertEquals(100L, name.get("distinct"));
+            assertEquals("name0", name.get("min"));
+            assertEquals("name99", name.get("max"));
+
+            Map<String, Object> score = rows.get("score");
+            Map<String, Object> types = new HashMap<>();
+            types.put("INTEGER", 2500L);
+            types.put("FLOAT", 2500L);
+            assertEquals(types, score.get("types"));
+            assertEquals(4999L, score.get("max"));
+            assertEquals(1L, score.get("min"));
+
+            assertEquals(0.75, (double) rows.get("nick").get("nullRatio"), 0.0001);
+        });
+    }
+
+    @Test public void testSampleOfAllLabels() throws Exception {
+        db.execute("UNWIND range(1,5000) AS i CREATE (:A {x:i}) CREATE (:B {y:'b'})").close();
+        testResult(db, "CALL apoc.meta.profile({sample:500})", (result) -> {
+            Map<String, Object> a = result.next();
+            assertEquals("A", a.get("label"));
+            assertEquals(5000L, a.get("nodes"));
+            long sampled = (long) a.get("sampled");
+            assertTrue("sampled " + sampled, sampled > 350 && sampled < 650);
+            assertEquals(sampled, a.get("count"));
+            assertEquals(10, ((List) a.get("sample")).size());
+            Map<String, Object> b = result.next();
+            assertEquals("B", b.get("label"));
+            assertEquals(1L, b.get("distinct"));
+            assertFalse(result.hasNext());
+        });
+    }
+
+    @Test public void testProfileArrays() throws Exception {
+        db.execute("CREATE (:Thing {longs:[1,2], doubles:[1.5], flags:[true], names:['a','b']}), (:Thing {longs:[3], names:'c'})").close();
+        testResult(db, "CALL apoc.meta.profile({labels:['Thing'], sample:-1})", (result) -> {
+            Map<String, Map<String, Object>> rows = new HashMap<>();
+            result.forEachRemaining(row -> rows.put((String) row.get("property"), row));
+            assertEquals(Collections.singletonMap("INTEGER[]", 2L), rows.get("longs").get("types"));
+            assertEquals(Collections.singletonMap("FLOAT[]", 1L), rows.get("doubles").get("types"));
+            assertEquals(Collections.singletonMap("BOOLEAN[]", 1L), rows.get("flags").get("types"));
+            Map<String, Object> types = new HashMap<>();
+            types.put("STRING[]", 1L);
+            types.put("STRING", 1L);
+            assertEquals(types, rows.get("names").get("types"));
+            assertEquals(2L, rows.get("longs").get("distinct"));
+        });
+    }
+
+    @Test public void testTypesOfArrays() throws Exception {
+        assertEquals(Meta.Types.INTEGER, Meta.Types.of(new long[]{1}));
+        assertEquals(Meta.Types.INTEGER, Meta.Types.of(new int[]{1}));
+        assertEquals(Meta.Types.FLOAT, Meta.Types.of(new double[]{1}));
+        assertEquals(Meta.Types.BOOLEAN, Meta.Types.of(new boolean[]{true}));
+        assertEquals(Meta.Types.STRING, Meta.Types.of(new String[]{"a"}));
+        assertEquals(Meta.Types.STRING, Meta.Types.of(new char[]{'a'}));
+    }
+
+    @Test public void testMergedSampleIsUniform() throws Exception {
+        Random random = new Random(42);
+        int[] fromFirst = new int[1];
+        for (int run = 0; run < 1000; run++) {
+            PropertyProfile first = new PropertyProfile(10, random), second = new PropertyProfile(10, random);
+            for (int i = 0; i < 900; i++) first.add(1);
+            for (int i = 0; i < 100; i++) second.add(2);
+            for (Object value : first.merge(second).sample()) if (value.equals(1)) fromFirst[0]++;
+            assertEquals(1000, first.count());
+        }
+        assertEquals(0.9, fromFirst[0] / 10_000d, 0.02);
+    }
+
+    @Test public void testProfileKeepsBoundedSample() throws Exception {
+        PropertyProfile profile = new PropertyProfile(3, new Random());
+        for (int i = 0; i < 1000; i++) profile.add(i);
+        profile.add(null);
+        assertEquals(1000, profile.count());
+        assertEquals(3, profile.sample().size());
+        assertTrue(profile.distinct() > 950 && profile.distinct() <= 1000);
+    }
+}
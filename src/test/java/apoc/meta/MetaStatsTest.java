@@ -0,0 +1,145 @@
+package apoc.meta;
+
+import apoc.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static apoc.util.TestUtil.testCall;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class MetaStatsTest {
+
+    private GraphDatabaseService db;
+
+    @Before public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, Meta.class);
+    }
+
+    @After public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test public void testMaintainedAfterBuild() throws Exception {
+        db.execute("CREATE (:Actor {name:'Keanu'})-[:ACTED_IN {role:'Neo'}]->(:Movie {title:'The Matrix'})").close();
+        MetaStats stats = MetaStats.of(db).build();
+        assertEquals(map("Actor", 1L, "Movie", 1L), counts(stats.labels));
+
+        db.execute("CREATE (:Actor:Director {name:'Clint', born:1930})-[:DIRECTED]->(:Movie {title:'Unforgiven'})").close();
+        assertEquals(map("Actor", 2L, "Director", 1L, "Movie", 2L), counts(stats.labels));
+        assertEquals(map("ACTED_IN", 1L, "DIRECTED", 1L), counts(stats.types));
+        assertEquals(asList("born", "name"), MetaStats.properties(stats.labelProperties, "Actor"));
+        assertEquals(asList("role"), MetaStats.properties(stats.typeProperties, "ACTED_IN"));
+        assertConsistent(stats);
+    }
+
+    @Test public void testRelabelMovesRelationships() throws Exception {
+        db.execute("CREATE (:Person {name:'Keanu'})-[:ACTED_IN]->(:Movie)").close();
+        MetaStats stats = MetaStats.of(db).build();
+        db.execute("MATCH (p:Person) SET p:Actor REMOVE p:Person").close();
+        Map<List<String>, Long> patterns = counts(stats.patterns);
+        assertEquals(Collections.singletonMap(asList("Actor", "ACTED_IN", "Movie"), 1L), patterns);
+        assertEquals(asList("name"), MetaStats.properties(stats.labelProperties, "Actor"));
+        assertEquals(Collections.emptyList(), MetaStats.properties(stats.labelProperties, "Person"));
+        assertConsistent(stats);
+    }
+
+    @Test public void testPropertiesAndDeletes() throws Exception {
+        db.execute("CREATE (a:Actor {name:'Keanu'})-[:ACTED_IN {role:'Neo'}]->(m:Movie {title:'The Matrix'}), (a)-[:KNOWS]->(:Actor {name:'Carrie'})").close();
+        MetaStats stats = MetaStats.of(db).build();
+        db.execute("MATCH (a:Actor {name:'Keanu'}) SET a.born = 1964, a.name = 'Keanu Reeves'").close();
+        db.execute("MATCH ()-[r:ACTED_IN]->() REMOVE r.role SET r.roles = ['Neo']").close();
+        assertConsistent(stats);
+        db.execute("MATCH (a:Actor {name:'Carrie'}) DETACH DELETE a").close();
+        db.execute("MATCH (m:Movie) REMOVE m.title").close();
+        assertConsistent(stats);
+        assertEquals(Long.valueOf(1), counts(stats.labels).get("Actor"));
+        assertEquals(asList("roles"), MetaStats.properties(stats.typeProperties, "ACTED_IN"));
+        assertEquals(Collections.emptyList(), MetaStats.properties(stats.labelProperties, "Movie"));
+        assertNull(counts(stats.types).get("KNOWS"));
+    }
+
+    @Test public void testChangesInOneTransaction() throws Exception {
+        MetaStats stats = MetaStats.of(db).build();
+        try (Transaction tx = db.beginTx()) {
+            Node a = db.createNode(Label.label("A"));
+            Node b = db.createNode(Label.label("B"));
+            a.setProperty("x", 1);
+            a.removeProperty("x");
+            a.createRelationshipTo(b, RelationshipType.withName("R")).setProperty("y", 1);
+            b.addLabel(Label.label("C"));
+            db.createNode(Label.label("D")).delete();
+            tx.success();
+        }
+        assertEquals(map("A", 1L, "B", 1L, "C", 1L), counts(stats.labels));
+        assertEquals(Collections.emptyList(), MetaStats.properties(stats.labelProperties, "A"));
+        assertConsistent(stats);
+    }
+
+    @Test public void testRollbackIsNotCounted() throws Exception {
+        MetaStats stats = MetaStats.of(db).build();
+        try (Transaction tx = db.beginTx()) {
+            db.createNode(Label.label("A"));
+            tx.failure();
+        }
+        assertEquals(Collections.emptyMap(), counts(stats.labels));
+    }
+
+    @Test public void testTransactionsBeforeBuildAreScanned() throws Exception {
+        db.execute("UNWIND range(1,10) AS i CREATE (:A {i:i})-[:R]->(:B)").close();
+        MetaStats stats = MetaStats.of(db);
+        assertEquals(Collections.emptyMap(), counts(stats.labels));
+        stats.build();
+        assertEquals(map("A", 10L, "B", 10L), counts(stats.labels));
+    }
+
+    @Test public void testMetaGraphFromStats() throws Exception {
+        db.execute("CREATE (:Actor {name:'Keanu'})-[:ACTED_IN]->(:Movie), (:Actor {name:'Carrie'})").close();
+        testCall(db, "CALL apoc.meta.graph", (row) -> {
+            List<Node> nodes = (List<Node>) row.get("nodes");
+            assertEquals(2, nodes.size());
+            assertEquals("Actor", nodes.get(0).getProperty("name"));
+            assertEquals(2L, nodes.get(0).getProperty("count"));
+            assertEquals(asList("name"), nodes.get(0).getProperty("properties"));
+            List<Relationship> rels = (List<Relationship>) row.get("relationships");
+            assertEquals(1, rels.size());
+            assertEquals("ACTED_IN", rels.get(0).getType().name());
+            assertEquals(1L, rels.get(0).getProperty("count"));
+        });
+    }
+
+    /**
+     * The maintained counts equal those of a fresh scan.
+     */
+    private void assertConsistent(MetaStats stats) {
+        MetaStats scanned = new MetaStats((GraphDatabaseAPI) db).build();
+        assertEquals(counts(scanned.labels), counts(stats.labels));
+        assertEquals(counts(scanned.types), counts(stats.types));
+        assertEquals(counts(scanned.patterns), counts(stats.patterns));
+        for (String label : counts(scanned.labels).keySet()) {
+            assertEquals(counts(scanned.labelProperties.get(label)), counts(stats.labelProperties.get(label)));
+        }
+        for (String type : counts(scanned.types).keySet()) {
+            assertEquals(counts(scanned.typeProperties.get(type)), counts(stats.typeProperties.get(type)));
+        }
+    }
+
+    private static <K> Map<K, Long> counts(Map<K, LongAdder> counters) {
+        if (counters == null) return Collections.emptyMap();
+        return new HashMap<>(MetaStats.counts(counters, (a, b) -> a.toString().compareTo(b.toString())));
+    }
+
+    private static Map<String, Long> map(Object... values) {
+        Map<String, Long> map = new HashMap<>();
+        for (int i = 0; i < values.length; i += 2) map.put((String) values[i], (Long) values[i + 1]);
+        return map;
+    }
+}
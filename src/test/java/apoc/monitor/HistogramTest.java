@@ -0,0 +1,49 @@
+package apoc.monitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() throws Exception {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(value + " >= lower bound", value >= Histogram.lowerBound(bucket));
+            assertTrue(value + " <= upper bound", value <= Histogram.upperBound(bucket));
+            assertTrue(Histogram.upperBound(bucket) - Histogram.lowerBound(bucket) <= Histogram.lowerBound(bucket) / 8);
+        }
+        assertEquals(Histogram.bucket(8) + 1, Histogram.bucket(9));
+        assertEquals(Histogram.bucket(16), Histogram.bucket(17));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) histogram.record(i);
+        assertEquals(1000, histogram.count());
+        assertEquals(500500, histogram.sum());
+        assertEquals(1000, histogram.max());
+        assertEquals(500.5, histogram.mean(), 0.001);
+        assertEquals(500, histogram.percentile(0.5), 500 / 8);
+        assertEquals(990, histogram.percentile(0.99), 990 / 8);
+        assertEquals(1000, histogram.percentile(1));
+        assertEquals(0, new Histogram().percentile(0.5));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) histogram.record(i % 100);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(40000, histogram.count());
+        assertEquals(99, histogram.max());
+    }
+}
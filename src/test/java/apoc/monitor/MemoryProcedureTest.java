@@ -0,0 +1,55 @@
+package apoc.monitor;
+
+import org.junit.Test;
+
+import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
+import static org.junit.Assert.*;
+
+public class MemoryProcedureTest extends MonitorTestCase {
+
+    @Override
+    Class procedureClass() {
+        return Memory.class;
+    }
+
+    @Test
+    public void testPageCache() {
+        db.execute("UNWIND range(1,100) as i CREATE (:Foo {id:i})").close();
+        testCall(db, "CALL apoc.monitor.pageCache()", (row) -> {
+            assertTrue((long) row.get("pageSize") > 0);
+            assertTrue((long) row.get("maxPages") > 0);
+            assertTrue((long) row.get("faults") > 0);
+            assertTrue((long) row.get("bytesWritten") > 0);
+            if ((long) row.get("pins") > 0) {
+                assertEquals((long) row.get("pins") - (long) row.get("faults"), row.get("hits"));
+            } else {
+                assertEquals(-1L, row.get("hits"));
+                assertEquals(-1d, row.get("hitRatio"));
+            }
+            assertTrue((long) row.get("filesMapped") > 0);
+        });
+    }
+
+    @Test
+    public void testMemory() {
+        testCall(db, "CALL apoc.monitor.memory()", (row) -> {
+            assertTrue((long) row.get("heapUsed") > 0);
+            assertTrue((long) row.get("heapCommitted") >= (long) row.get("heapUsed"));
+            assertTrue((long) row.get("nonHeapUsed") > 0);
+            assertTrue((long) row.get("gcCount") >= 0);
+        });
+    }
+
+    @Test
+    public void testGc() {
+        testResult(db, "CALL apoc.monitor.gc()", (result) -> {
+            assertTrue(result.hasNext());
+            while (result.hasNext()) {
+                java.util.Map<String, Object> row = result.next();
+                assertNotNull(row.get("name"));
+                assertFalse(((java.util.List) row.get("pools")).isEmpty());
+            }
+        });
+    }
+}
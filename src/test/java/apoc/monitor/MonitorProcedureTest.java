@@ -0,0 +1,28 @@
+package apoc.monitor;
+
+import org.junit.Test;
+
+import static apoc.util.TestUtil.testCall;
+import static org.junit.Assert.*;
+
+public class MonitorProcedureTest extends MonitorTestCase {
+
+    @Override
+    Class procedureClass() {
+        return Monitor.class;
+    }
+
+    @Test
+    public void testAll() {
+        testCall(db, "CREATE (n)-[:REL_TYPE1]->(n2)", (row) -> {});
+        testCall(db, "CALL apoc.monitor.all()", (row) -> {
+            assertEquals(2L, row.get("nodeIds"));
+            assertEquals(1L, row.get("relIds"));
+            assertEquals("impermanent-db", row.get("databaseName"));
+            assertTrue(String.valueOf(row.get("kernelVersion")).contains("3.0.0"));
+            assertNotNull(row.get("totalStoreSize"));
+            assertTrue((long) row.get("totalTx") >= 1);
+            assertEquals(0L, row.get("rolledBackTx"));
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package apoc.monitor;
+
+import apoc.load.LoadJson;
+import apoc.util.TestUtil;
+import org.junit.Test;
+
+import static apoc.util.TestUtil.map;
+import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
+import static org.junit.Assert.*;
+
+public class ProceduresProcedureTest extends MonitorTestCase {
+
+    @Override
+    Class procedureClass() {
+        return Procedures.class;
+    }
+
+    @Test
+    public void testProcedureStats() throws Exception {
+        TestUtil.registerProcedure(db, LoadJson.class);
+        String url = ClassLoader.getSystemResource("people.ndjson").toString();
+        db.execute("CALL apoc.monitor.procedures({names:['apoc.load.jsonPath'],reset:true})").close();
+        for (int i = 0; i < 3; i++) {
+            testResult(db, "CALL apoc.load.jsonPath({url},'$.name') YIELD value RETURN value", map("url", url), (r) -> assertEquals(3, r.stream().count()));
+        }
+        try {
+            db.execute("CALL apoc.load.jsonPath('file:does-not-exist.json','$.name')").close();
+            fail("should fail");
+        } catch (Exception expected) {
+        }
+        testCall(db, "CALL apoc.monitor.procedures({names:['apoc.load.jsonPath'],reset:true})", (row) -> {
+            assertEquals("apoc.load.jsonPath", row.get("name"));
+            assertEquals(4L, row.get("calls"));
+            assertEquals(1L, row.get("errors"));
+            assertEquals(9L, row.get("rows"));
+            assertEquals(3L, row.get("maxRows"));
+            assertTrue((double) row.get("maxMillis") >= (double) row.get("p50Millis"));
+            assertTrue((double) row.get("p50Millis") > 0);
+        });
+        testResult(db, "CALL apoc.monitor.procedures({names:['apoc.load.jsonPath']})", (r) -> assertFalse(r.hasNext()));
+    }
+}
@@ -0,0 +1,85 @@
+package apoc.monitor;
+
+import apoc.result.MetricStatsResult;
+import org.junit.Test;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.testResult;
+import static org.junit.Assert.*;
+
+public class SamplesProcedureTest extends MonitorTestCase {
+
+    @Override
+    Class procedureClass() {
+        return Samples.class;
+    }
+
+    @Test
+    public void testSamples() throws Exception {
+        Sampler sampler = Sampler.of((GraphDatabaseAPI) db);
+        assertNotNull(sampler);
+        sampler.sample();
+        db.execute("CREATE (n)").close();
+        Thread.sleep(10);
+        sampler.sample();
+        testResult(db, "CALL apoc.monitor.samples({windows:[60],names:['tx.committed','ids.nodes']})", (result) -> {
+            assertTrue(result.hasNext());
+            while (result.hasNext()) {
+                Map<String, Object> row = result.next();
+                assertEquals(60L, row.get("window"));
+                assertTrue((long) row.get("samples") >= 2);
+                if (row.get("name").equals("tx.committed")) {
+                    assertEquals(true, row.get("counter"));
+                    assertTrue((long) row.get("delta") >= 1);
+                    assertTrue((double) row.get("rate") > 0);
+                } else {
+                    assertEquals("ids.nodes", row.get("name"));
+                    assertEquals(false, row.get("counter"));
+                    assertEquals(1L, row.get("value"));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRingBufferWindows() throws Exception {
+        Sampler sampler = new Sampler(null, null, 3);
+        int metrics = Sampler.METRICS.size();
+        for (int i = 0; i < 4; i++) {
+            long[] sample = new long[metrics];
+            boolean[] read = new boolean[metrics];
+            // tx.committed grows by 10, 20, 30 per second
+            sample[0] = i * (i + 1) / 2 * 10;
+            read[0] = true;
+            // ids.nodes can't be read in the last sample
+            sample[5] = 100 + i;
+            read[5] = i < 3;
+            sampler.record(i * 1000, sample, read);
+        }
+        List<MetricStatsResult> all = sampler.stats(10_000, 3000);
+        MetricStatsResult committed = all.get(0);
+        assertEquals("tx.committed", committed.name);
+        assertEquals(3L, committed.samples);
+        assertEquals(60L, committed.value);
+        assertEquals(50L, committed.delta);
+        assertEquals(25d, committed.rate, 0.001);
+        assertEquals(20d, committed.min, 0.001);
+        assertEquals(30d, committed.max, 0.001);
+        assertEquals(20d, committed.p50, 0.001);
+
+        assertEquals(2, all.size());
+        MetricStatsResult nodes = all.get(1);
+        assertEquals("ids.nodes", nodes.name);
+        assertEquals(101d, nodes.min, 0.001);
+        assertEquals(102d, nodes.max, 0.001);
+        assertEquals(102d, nodes.p50, 0.001);
+
+        MetricStatsResult recent = sampler.stats(1000, 3000).get(0);
+        assertEquals(2L, recent.samples);
+        assertEquals(30L, recent.delta);
+        assertEquals(30d, recent.rate, 0.001);
+    }
+}
@@ -0,0 +1,41 @@
+package apoc.monitor;
+
+import apoc.ApocConfiguration;
+import org.junit.Test;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.*;
+
+import static apoc.util.TestUtil.testResult;
+import static org.junit.Assert.*;
+
+public class ThreadPoolsProcedureTest extends MonitorTestCase {
+
+    @Override
+    Class procedureClass() {
+        return ThreadPools.class;
+    }
+
+    @Test
+    public void testGetThreadPoolInfo() {
+        testResult(db, "CALL apoc.monitor.pools()", (result) -> {
+            Set<Object> names = new HashSet<>();
+            while (result.hasNext()) {
+                Map<String, Object> row = result.next();
+                names.add(row.get("name"));
+                assertTrue((long) row.get("maxPoolSize") > 0);
+                assertTrue((long) row.get("activeThreads") >= 0);
+                assertTrue((long) row.get("completedTaskCount") <= (long) row.get("taskCount"));
+            }
+            assertEquals(new HashSet<>(Arrays.asList("batch", "background", "read", "scheduled")), names);
+        });
+    }
+
+    @Test
+    public void testConfigurationIsReadAtStartup() {
+        db.shutdown();
+        db = new TestGraphDatabaseFactory().newImpermanentDatabaseBuilder()
+                .setConfig("apoc.pools.batch.size", "3").newGraphDatabase();
+        assertEquals(3, ApocConfiguration.getInt("pools.batch.size", 0));
+    }
+}
@@ -1,14 +1,17 @@
 package apoc.monitor;
 
-import org.junit.Ignore;
 import org.junit.Test;
 
-import javax.management.ObjectName;
+import org.neo4j.helpers.collection.Iterators;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
 import static org.junit.Assert.*;
 
-@Ignore
 public class TransactionProcedureTest extends MonitorTestCase {
 
     @Override
@@ -16,21 +19,57 @@ public class TransactionProcedureTest extends MonitorTestCase {
         return Transaction.class;
     }
 
-    // These tests fails with an impermanent db
-
-//
-//    @Test
-//    public void testGetTransactionInfo() {
-//        createData();
-//        ObjectName objectName = JmxUtils.getObjectName(db, "Transactions");
-//        long tx = (long) JmxUtils.getAttribute(objectName, "NumberOfRolledBackTransactions");
-//        System.out.println(tx);
-//        testCall(db, "CALL apoc.monitor.tx()", (row) -> {
-//            assertEquals(0, (long) row.get("rolledBackTx"));
-//        });
-//    }
-//
-//    private void createData() {
-//        testCall(db, "CREATE (n)", (row) -> {});
-//    }
+    @Test
+    public void testGetTransactionInfo() {
+        createData();
+        testCall(db, "CALL apoc.monitor.tx()", (row) -> {
+            assertEquals(0L, (long) row.get("rolledBackTx"));
+            assertTrue((long) row.get("totalTx") >= 1);
+            assertTrue((long) row.get("totalOpenedTx") >= (long) row.get("totalTx"));
+            // the transaction of this call
+            assertTrue((long) row.get("currentOpenedTx") >= 1);
+            assertTrue((long) row.get("peakTx") >= 1);
+            assertTrue((long) row.get("lastTxId") > 1);
+        });
+    }
+
+    @Test
+    public void testActiveTransactions() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try (org.neo4j.graphdb.Transaction tx = db.beginTx()) {
+                db.createNode();
+                started.countDown();
+                done.await();
+                tx.success();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        started.await();
+        Thread.sleep(50);
+        try {
+            testResult(db, "CALL apoc.monitor.transactions()", (result) -> {
+                List<Map<String, Object>> rows = Iterators.asList(result);
+                assertEquals(2, rows.size());
+                Map<String, Object> other = rows.get(0);
+                assertEquals(false, other.get("current"));
+                assertEquals(true, other.get("hasChanges"));
+                assertEquals(false, other.get("terminated"));
+                assertEquals("explicit", other.get("type"));
+                assertTrue((long) other.get("ageMillis") >= 50);
+                assertEquals(true, rows.get(1).get("current"));
+                assertEquals(false, rows.get(1).get("hasChanges"));
+            });
+        } finally {
+            done.countDown();
+            writer.join();
+        }
+    }
+
+    private void createData() {
+        testCall(db, "CREATE (n) RETURN n", (row) -> {});
+    }
 }
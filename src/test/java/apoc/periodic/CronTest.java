@@ -0,0 +1,67 @@
+package apoc.periodic;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+
+public class CronTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    @Test
+    public void testEveryMinute() throws Exception {
+        assertEquals(at(2016, 5, 10, 12, 1), next("* * * * *", at(2016, 5, 10, 12, 0)));
+        assertEquals(at(2016, 5, 10, 12, 1), next("* * * * *", at(2016, 5, 10, 12, 0) + 59_999));
+    }
+
+    @Test
+    public void testDaily() throws Exception {
+        assertEquals(at(2016, 5, 11, 3, 0), next("0 3 * * *", at(2016, 5, 10, 3, 0)));
+        assertEquals(at(2016, 5, 10, 3, 0), next("0 3 * * *", at(2016, 5, 10, 2, 59)));
+        assertEquals(at(2016, 5, 11, 0, 0), next("@daily", at(2016, 5, 10, 12, 0)));
+    }
+
+    @Test
+    public void testStepsRangesAndLists() throws Exception {
+        assertEquals(at(2016, 5, 10, 12, 15), next("*/15 * * * *", at(2016, 5, 10, 12, 1)));
+        assertEquals(at(2016, 5, 10, 13, 0), next("0,30 9-17 * * *", at(2016, 5, 10, 12, 30)));
+        assertEquals(at(2016, 5, 11, 9, 0), next("0,30 9-17 * * *", at(2016, 5, 10, 17, 30)));
+    }
+
+    @Test
+    public void testNames() throws Exception {
+        // 2016-05-10 is a tuesday
+        assertEquals(at(2016, 5, 13, 0, 0), next("0 0 * * fri", at(2016, 5, 10, 12, 0)));
+        assertEquals(at(2016, 5, 15, 0, 0), next("0 0 * * 7", at(2016, 5, 10, 12, 0)));
+        assertEquals(at(2017, 1, 1, 0, 0), next("0 0 1 jan *", at(2016, 5, 10, 12, 0)));
+    }
+
+    @Test
+    public void testDayOfMonthOrDayOfWeek() throws Exception {
+        assertEquals(at(2016, 5, 13, 0, 0), next("0 0 20 * FRI", at(2016, 5, 10, 12, 0)));
+        assertEquals(at(2016, 5, 20, 0, 0), next("0 0 20 * FRI", at(2016, 5, 19, 12, 0)));
+        assertEquals(at(2016, 2, 29, 0, 0), next("0 0 29 2 *", at(2015, 3, 1, 0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() throws Exception {
+        Cron.parse("0 24 * * *");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingField() throws Exception {
+        Cron.parse("0 3 * *");
+    }
+
+    private static long next(String expression, long after) {
+        return Cron.parse(expression).next(after, UTC);
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(UTC).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,68 @@
+package apoc.periodic;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.System.currentTimeMillis;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobSchedulingTest {
+
+    @Test public void testSlowJobsDontHoldUpOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch fastRan = new CountDownLatch(1);
+        try {
+            Periodic.schedule("slowJob", (job) -> {
+                slowStarted.countDown();
+                release.await();
+                return 0;
+            }, 0, 1);
+            assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+            Periodic.schedule("fastJob", fastRan::countDown, 0);
+            assertTrue("a running job blocked the scheduler", fastRan.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            Periodic.cancelJob("slowJob", false);
+            Periodic.cancelJob("fastJob", false);
+        }
+    }
+
+    @Test public void testRepeatedRunsDontOverlap() throws Exception {
+        CountDownLatch runs = new CountDownLatch(3);
+        int[] running = {0}, maxRunning = {0};
+        try {
+            Periodic.schedule("sequentialJob", (job) -> {
+                synchronized (running) { maxRunning[0] = Math.max(maxRunning[0], ++running[0]); }
+                Thread.sleep(50);
+                synchronized (running) { running[0]--; }
+                runs.countDown();
+                return 0;
+            }, 0, 1);
+            assertTrue(runs.await(10, TimeUnit.SECONDS));
+            synchronized (running) { assertEquals(1, maxRunning[0]); }
+        } finally {
+            Periodic.cancelJob("sequentialJob", false);
+        }
+    }
+
+    @Test public void testRetentionOfResubmittedJob() throws Exception {
+        try {
+            Periodic.schedule("resubmittedJob", () -> {}, 3600);
+            Periodic.JobInfo info = Periodic.submit("resubmittedJob", () -> {});
+            long timeout = currentTimeMillis() + 5000;
+            while (!Periodic.list.get(info).isFinished() && currentTimeMillis() < timeout) Thread.sleep(10);
+            for (Periodic.JobInfo key : Periodic.list.keySet()) if (key.name.equals("resubmittedJob")) key.lastFinished = 0;
+            Periodic.removeFinished(currentTimeMillis());
+            assertTrue("a job that just finished was removed", Periodic.list.containsKey(info));
+            Periodic.removeFinished(currentTimeMillis() + Periodic.RETAIN_FINISHED_MILLIS + 1000);
+            assertFalse(Periodic.list.containsKey(info));
+        } finally {
+            Periodic.cancelJob("resubmittedJob", false);
+        }
+    }
+}
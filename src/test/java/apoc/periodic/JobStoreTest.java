@@ -0,0 +1,103 @@
+package apoc.periodic;
+
+import apoc.convert.Json;
+import apoc.util.TestUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.helpers.collection.Iterators;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.map;
+import static apoc.util.TestUtil.testCall;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JobStoreTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void testRepeatAndCronArePersistedAndRearmed() throws Exception {
+        File dir = folder.newFolder();
+        GraphDatabaseService db = embedded(dir);
+        try {
+            testCall(db, "CALL apoc.periodic.repeat('persistedTick','CREATE (:Tick)',3600)", (row) -> assertEquals(3600L, row.get("rate")));
+            testCall(db, "CALL apoc.periodic.cron('persistedCron','CREATE (:Cron)','0 3 * * *',{})", (row) -> assertEquals("0 3 * * *", row.get("cron")));
+            awaitCount(db, "Tick", 1);
+        } finally {
+            db.shutdown();
+        }
+        List<Map<String, Object>> definitions = Json.OBJECT_MAPPER.readValue(new File(dir, JobStore.FILE_NAME), List.class);
+        assertEquals(2, definitions.size());
+        assertTrue(((Number) definitions.get(0).get("lastRun")).longValue() > 0);
+
+        db = embedded(dir);
+        try {
+            // the rate continues from the last run, so no immediate run after the restart
+            Map<String, Object> tick = Iterators.single(db.execute("CALL apoc.periodic.list() YIELD name, delay, rate WITH * WHERE name = 'persistedTick' RETURN *"));
+            assertEquals(3600L, tick.get("rate"));
+            assertTrue((long) tick.get("delay") > 3500);
+            testCall(db, "CALL apoc.periodic.list() YIELD name, cron WITH * WHERE name = 'persistedCron' RETURN *", (row) -> assertEquals("0 3 * * *", row.get("cron")));
+            Thread.sleep(500);
+            assertEquals(1L, db.execute("MATCH (t:Tick) RETURN count(*) as c").columnAs("c").next());
+            testCall(db, "CALL apoc.periodic.cancel('persistedTick')", (row) -> assertEquals(true, row.get("cancelled")));
+            testCall(db, "CALL apoc.periodic.cancel('persistedCron')", (row) -> assertEquals(true, row.get("cancelled")));
+        } finally {
+            db.shutdown();
+        }
+        assertEquals(0, Json.OBJECT_MAPPER.readValue(new File(dir, JobStore.FILE_NAME), List.class).size());
+    }
+
+    @Test public void testMissedCronRunsAreCoalesced() throws Exception {
+        File dir = folder.newFolder();
+        long twoYearsAgo = System.currentTimeMillis() - 2 * 366 * 24 * 3600 * 1000L;
+        Object definitions = Arrays.asList(
+                map("name", "missedCron", "statement", "CREATE (:Missed)", "cron", "0 0 1 * *", "catchUp", true, "lastRun", twoYearsAgo),
+                map("name", "skippedCron", "statement", "CREATE (:Skipped)", "cron", "0 0 1 * *", "catchUp", false, "lastRun", twoYearsAgo));
+        Json.OBJECT_MAPPER.writeValue(new File(dir, JobStore.FILE_NAME), definitions);
+        GraphDatabaseService db = embedded(dir);
+        try {
+            awaitCount(db, "Missed", 1);
+            Thread.sleep(500);
+            // 24 missed monthly runs result in a single run
+            assertEquals(1L, db.execute("MATCH (n:Missed) RETURN count(*) as c").columnAs("c").next());
+            assertEquals(0L, db.execute("MATCH (n:Skipped) RETURN count(*) as c").columnAs("c").next());
+            db.execute("CALL apoc.periodic.cancel('missedCron')").close();
+            db.execute("CALL apoc.periodic.cancel('skippedCron')").close();
+        } finally {
+            db.shutdown();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidCron() throws Exception {
+        GraphDatabaseService db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        try {
+            TestUtil.registerProcedure(db, Periodic.class);
+            db.execute("CALL apoc.periodic.cron('invalid','RETURN 1','61 * * * *',{})").close();
+        } finally {
+            db.shutdown();
+        }
+    }
+
+    private static GraphDatabaseService embedded(File dir) throws Exception {
+        GraphDatabaseService db = new TestGraphDatabaseFactory().newEmbeddedDatabase(dir);
+        TestUtil.registerProcedure(db, Periodic.class);
+        return db;
+    }
+
+    private static void awaitCount(GraphDatabaseService db, String label, long count) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while ((long) db.execute("MATCH (n:`" + label + "`) RETURN count(*) as c").columnAs("c").next() < count && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, db.execute("MATCH (n:`" + label + "`) RETURN count(*) as c").columnAs("c").next());
+    }
+
+}
@@ -2,12 +2,17 @@ package apoc.refactor;
 
 import apoc.convert.Json;
 import apoc.util.TestUtil;
+import org.neo4j.helpers.collection.Iterators;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.map;
 import static org.junit.Assert.*;
 
 /**
@@ -51,4 +56,114 @@ public class GraphRefactoringTest {
     public void testRedirectRelationship() throws Exception {
 
     }
+
+    @Test
+    public void testDedupeNodes() throws Exception {
+        db.execute("CREATE (c:City) WITH c UNWIND ['a','a','a','b','b','c'] as name " +
+                "CREATE (p:Person {name:name})-[:LIVES_IN {since:name}]->(c), (:Pet)-[:OWNED_BY]->(p)").close();
+        List<Map<String, Object>> batches = Iterators.asList(db.execute("CALL apoc.refactor.dedupeNodes('Person','name',{batchSize:1})"));
+        assertEquals(2, batches.size());
+        assertEquals(2L, batches.get(1).get("total"));
+        assertEquals(0L, batches.get(0).get("failed"));
+        assertNull(batches.get(0).get("error"));
+        TestUtil.testResult(db, "MATCH (p:Person) RETURN p.name as name, size((p)-[:LIVES_IN]->()) as lives, size((p)<-[:OWNED_BY]-()) as pets ORDER BY name", r -> {
+            assertEquals(map("name", "a", "lives", 1L, "pets", 3L), r.next());
+            assertEquals(map("name", "b", "lives", 1L, "pets", 2L), r.next());
+            assertEquals(map("name", "c", "lives", 1L, "pets", 1L), r.next());
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test
+    public void testDedupeNodesKeepsParallelRelationships() throws Exception {
+        db.execute("CREATE (c:City) WITH c UNWIND range(1,4) as i CREATE (:Person {name:'a'})-[:LIVES_IN]->(c)").close();
+        TestUtil.testCall(db, "CALL apoc.refactor.dedupeNodes('Person','name',{collapseRelationships:false}) YIELD operations RETURN operations",
+                row -> assertEquals(3L, row.get("operations")));
+        TestUtil.testCall(db, "MATCH (p:Person) RETURN count(*) as people, size((p)-[:LIVES_IN]->()) as lives",
+                row -> assertEquals(map("people", 1L, "lives", 4L), row));
+    }
+
+    @Test
+    public void testMergeNodesKeepsDirection() throws Exception {
+        db.execute("CREATE (a:A)-[:R]->(b:B), (c:C)-[:R]->(b)").close();
+        TestUtil.testCall(db, "MATCH (a:A), (b:B), (c:C) CALL apoc.refactor.mergeNodes([b,a]) YIELD node RETURN node", row -> {});
+        TestUtil.testCall(db, "MATCH (c:C)-[:R]->(n:B) RETURN labels(n) as labels, size((n)-[:R]->(n)) as loops",
+                row -> assertEquals(1L, row.get("loops")));
+    }
+
+    @Test
+    public void testRenameType() throws Exception {
+        db.execute("CREATE (a:A) WITH a UNWIND range(1,5) as i CREATE (a)-[:KNOWS {i:i}]->(:B), (a)-[:LIKES]->(:C)").close();
+        List<Map<String, Object>> batches = Iterators.asList(db.execute("CALL apoc.refactor.rename.type('KNOWS','FRIEND',null,{batchSize:2,parallel:2})"));
+        assertEquals(3, batches.size());
+        assertEquals(5L, batches.get(2).get("total"));
+        TestUtil.testCall(db, "MATCH (:A)-[r:FRIEND]->(:B) RETURN count(*) as c, sum(r.i) as sum, size(()-[:KNOWS]->()) as old, size(()-[:LIKES]->()) as likes",
+                row -> assertEquals(map("c", 5L, "sum", 15L, "old", 0L, "likes", 5L), row));
+    }
+
+    @Test
+    public void testRenameTypeOfGivenRelationships() throws Exception {
+        db.execute("UNWIND range(1,4) as i CREATE (:A {i:i})-[:KNOWS]->(:B)").close();
+        TestUtil.testCall(db, "MATCH (a:A)-[r:KNOWS]->() WHERE a.i > 2 WITH collect(r) as rels CALL apoc.refactor.rename.type('KNOWS','FRIEND',rels,{}) YIELD total RETURN total",
+                row -> assertEquals(2L, row.get("total")));
+        TestUtil.testCall(db, "MATCH (a:A)-[r:FRIEND]->() RETURN collect(a.i) as ids", row -> assertEquals(2, ((List) row.get("ids")).size()));
+    }
+
+    @Test
+    public void testRenameTypeToItself() throws Exception {
+        db.execute("CREATE (:A)-[:KNOWS {i:1}]->(:B)").close();
+        assertEquals(0, Iterators.count(db.execute("CALL apoc.refactor.rename.type('KNOWS','KNOWS',null,{})")));
+        TestUtil.testCall(db, "MATCH (:A)-[r:KNOWS]->(:B) RETURN count(*) as c, sum(r.i) as i",
+                row -> assertEquals(map("c", 1L, "i", 1L), row));
+    }
+
+    @Test
+    public void testRedirectAll() throws Exception {
+        db.execute("CREATE (s1:S)-[:R]->(s2:S), (s1)-[:R]->(:X), (:Y)-[:R]->(s2), (s2)-[:Q]->(:Z), (:T)").close();
+        TestUtil.testCall(db, "MATCH (s:S) WITH collect(s) as sources MATCH (t:T) CALL apoc.refactor.redirectAll(sources,t,{types:['R'],batchSize:1}) YIELD batch, error WITH max(batch) as batches, collect(error) as errors RETURN *",
+                row -> assertEquals(map("batches", 2L, "errors", java.util.Collections.emptyList()), row));
+        TestUtil.testCall(db, "MATCH (t:T) RETURN size((t)-[:R]->(t)) as loops, size((t)-[:R]->(:X)) as out, size((:Y)-[:R]->(t)) as in, size((:S)-[:R]-()) as left, size((:S)-[:Q]->()) as others",
+                row -> assertEquals(map("loops", 1L, "out", 1L, "in", 1L, "left", 0L, "others", 1L), row));
+    }
+
+    @Test
+    public void testRedirectAllInParallelBatches() throws Exception {
+        db.execute("CREATE (:T) WITH 1 as x UNWIND range(1,10) as i CREATE (s:S {i:i}) WITH s UNWIND range(1,50) as j CREATE (s)-[:R {j:j}]->(:X)").close();
+        TestUtil.testCall(db, "MATCH (s:S) WITH collect(s) as sources MATCH (t:T) CALL apoc.refactor.redirectAll(sources,t,{batchSize:7,parallel:4}) YIELD items, error WITH sum(items) as total, collect(error) as errors RETURN *",
+                row -> assertEquals(map("total", 500L, "errors", java.util.Collections.emptyList()), row));
+        TestUtil.testCall(db, "MATCH (t:T) RETURN size((t)-[:R]->(:X)) as moved, sum(size((t)-[:R]->())) as all, size((:S)-[:R]->()) as left",
+                row -> assertEquals(map("moved", 500L, "all", 500L, "left", 0L), row));
+    }
+
+    @Test
+    public void testCloneSubgraph() throws Exception {
+        db.execute("CREATE (a:A {name:'a'})-[:R {w:1}]->(b:B {name:'b'})-[:R]->(a), (b)-[:LOOP]->(b), (a)-[:EXT]->(:X), (:Y)-[:EXT]->(b)").close();
+        TestUtil.testResult(db, "MATCH (n) WHERE n:A OR n:B WITH collect(n) as nodes CALL apoc.refactor.cloneSubgraph(nodes,{batchSize:1}) YIELD source, target RETURN source, target", r -> {
+            Map<String, Object> row = r.next();
+            assertNotEquals(row.get("source"), row.get("target"));
+            r.next();
+            assertFalse(r.hasNext());
+        });
+        db.execute("MATCH (n) WHERE (n:A OR n:B) AND NOT (n)-[:EXT]-() SET n:Clone").close();
+        TestUtil.testCall(db, "MATCH (a:A:Clone)-[r:R]->(b:B:Clone)-[:R]->(a) RETURN r.w as w, a.name as name, size((b)-[:LOOP]->(b)) as loops, size((a)-[:EXT]-()) + size((b)-[:EXT]-()) as external",
+                row -> assertEquals(map("w", 1L, "name", "a", "loops", 1L, "external", 0L), row));
+        TestUtil.testCall(db, "MATCH (n) WHERE n:A OR n:B WITH collect(n) as nodes CALL apoc.refactor.cloneSubgraph(nodes,{keepExternal:true}) YIELD target RETURN count(*) as c",
+                row -> assertEquals(4L, row.get("c")));
+        TestUtil.testCall(db, "MATCH (x:X), (y:Y) RETURN size((x)<-[:EXT]-(:A)) as in, size((y)-[:EXT]->(:B)) as out",
+                row -> assertEquals(map("in", 2L, "out", 2L), row));
+    }
+
+    @Test
+    public void testCloneSubgraphDeletesClonesOnFailure() throws Exception {
+        db.execute("CREATE CONSTRAINT ON (a:A) ASSERT a.name IS UNIQUE").close();
+        db.execute("CREATE (:B {name:'b'})-[:R]->(:A {name:'a'})").close();
+        try {
+            Iterators.count(db.execute("MATCH (b:B), (a:A) CALL apoc.refactor.cloneSubgraph([b,a],{batchSize:1}) YIELD target RETURN target"));
+            fail("cloning a node with a unique property should fail");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Error cloning nodes in batch 1"));
+        }
+        TestUtil.testCall(db, "MATCH (n) RETURN count(*) as nodes, size(()-[:R]->()) as rels",
+                row -> assertEquals(map("nodes", 2L, "rels", 1L), row));
+    }
 }
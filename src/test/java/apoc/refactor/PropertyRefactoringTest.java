@@ -0,0 +1,98 @@
+package apoc.refactor;
+
+import apoc.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import static apoc.util.TestUtil.map;
+import static org.junit.Assert.*;
+
+public class PropertyRefactoringTest {
+
+    private GraphDatabaseService db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, PropertyRefactoring.class);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testRenameNodeProperty() throws Exception {
+        db.execute("UNWIND range(1,5) as i CREATE (:Person {fullName:'p'+i}), (:Other {fullName:'o'+i})").close();
+        TestUtil.testCall(db, "CALL apoc.refactor.rename.nodeProperty('Person','fullName','name',{batchSize:2,parallel:2}) YIELD batch, total, operations " +
+                        "RETURN max(batch) as batches, max(total) as items, sum(operations) as ops",
+                row -> assertEquals(map("batches", 2L, "items", 5L, "ops", 5L), row));
+        TestUtil.testCall(db, "MATCH (p:Person) WHERE exists(p.name) AND NOT exists(p.fullName) WITH count(*) as renamed " +
+                        "MATCH (o:Other) WHERE exists(o.fullName) RETURN renamed, count(*) as others",
+                row -> assertEquals(map("renamed", 5L, "others", 5L), row));
+    }
+
+    @Test
+    public void testRenameTypeProperty() throws Exception {
+        db.execute("CREATE (a)-[:KNOWS {since:2010}]->(b), (a)-[:LIKES {since:2011}]->(b)").close();
+        TestUtil.testCall(db, "CALL apoc.refactor.rename.typeProperty('KNOWS','since','from',{}) YIELD operations RETURN operations",
+                row -> assertEquals(1L, row.get("operations")));
+        TestUtil.testCall(db, "MATCH ()-[k:KNOWS]->(), ()-[l:LIKES]->() RETURN k.from as from, k.since as since, l.since as likes",
+                row -> assertEquals(map("from", 2010L, "since", null, "likes", 2011L), row));
+    }
+
+    @Test
+    public void testConvertProperties() throws Exception {
+        db.execute("CREATE (:Event {count:'42', at:'2016-04-20 10:00:00'}), (:Event {count:'x', at:'2016-04-21 10:00:00'}), (a)-[:R {weight:'1.5'}]->(a)").close();
+        TestUtil.testCall(db, "CALL apoc.refactor.convert.nodeProperty('Event','count','INTEGER',{}) YIELD operations RETURN operations",
+                row -> assertEquals(1L, row.get("operations")));
+        TestUtil.testCall(db, "CALL apoc.refactor.convert.nodeProperty('Event','at','DATE',{format:'yyyy-MM-dd HH:mm:ss'}) YIELD operations RETURN operations",
+                row -> assertEquals(2L, row.get("operations")));
+        TestUtil.testCall(db, "CALL apoc.refactor.convert.typeProperty('R','weight','FLOAT',{}) YIELD operations RETURN operations",
+                row -> assertEquals(1L, row.get("operations")));
+        TestUtil.testResult(db, "MATCH (e:Event) RETURN e.count as count, e.at as at ORDER BY at", r -> {
+            assertEquals(map("count", 42L, "at", 1461146400000L), r.next());
+            assertEquals(map("count", "x", "at", 1461232800000L), r.next());
+        });
+        TestUtil.testCall(db, "MATCH ()-[r:R]->() RETURN r.weight as weight", row -> assertEquals(1.5d, row.get("weight")));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testConvertToUnsupportedType() throws Exception {
+        db.execute("CALL apoc.refactor.convert.nodeProperty('Event','count','NODE',{})").close();
+    }
+
+    @Test
+    public void testCategorize() throws Exception {
+        db.execute("CREATE (:Genre {name:'Drama'}) WITH 1 as x UNWIND ['Drama','Comedy','Drama','Action'] as genre CREATE (:Movie {genre:genre})").close();
+        TestUtil.testCall(db, "CALL apoc.refactor.categorize('Movie','genre','IN_GENRE',true,'Genre','name',{batchSize:1,parallel:2}) YIELD total, operations " +
+                        "RETURN max(total) as items, sum(operations) as ops",
+                row -> assertEquals(map("items", 4L, "ops", 4L), row));
+        TestUtil.testResult(db, "MATCH (g:Genre) RETURN g.name as name, size((:Movie)-[:IN_GENRE]->(g)) as movies ORDER BY name", r -> {
+            assertEquals(map("name", "Action", "movies", 1L), r.next());
+            assertEquals(map("name", "Comedy", "movies", 1L), r.next());
+            assertEquals(map("name", "Drama", "movies", 2L), r.next());
+            assertFalse(r.hasNext());
+        });
+        TestUtil.testCall(db, "MATCH (m:Movie) WHERE exists(m.genre) RETURN count(*) as c", row -> assertEquals(0L, row.get("c")));
+    }
+
+    @Test
+    public void testCategorizeArrayValues() throws Exception {
+        db.execute("CREATE (:Movie {title:'A', tags:['x','y']}), (:Movie {title:'B', tags:['x','y']}), (:Movie {title:'C', years:[1999,2003]}), (:Movie {title:'D', years:[1999,2003]})").close();
+        TestUtil.testCall(db, "CALL apoc.refactor.categorize('Movie','tags','TAGGED',true,'Tags','value',{batchSize:1,parallel:2}) YIELD operations RETURN sum(operations) as ops",
+                row -> assertEquals(2L, row.get("ops")));
+        TestUtil.testCall(db, "CALL apoc.refactor.categorize('Movie','years','IN_YEARS',true,'Years','value',{}) YIELD operations RETURN sum(operations) as ops",
+                row -> assertEquals(2L, row.get("ops")));
+        TestUtil.testCall(db, "MATCH (t:Tags) RETURN t.value = ['x','y'] as value, size((:Movie)-[:TAGGED]->(t)) as movies",
+                row -> assertEquals(map("value", true, "movies", 2L), row));
+        TestUtil.testCall(db, "MATCH (y:Years) RETURN y.value = [1999,2003] as value, size((:Movie)-[:IN_YEARS]->(y)) as movies",
+                row -> assertEquals(map("value", true, "movies", 2L), row));
+        TestUtil.testCall(db, "MATCH (m:Movie) WHERE exists(m.tags) OR exists(m.years) RETURN count(*) as c", row -> assertEquals(0L, row.get("c")));
+    }
+}
@@ -8,6 +8,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.List;
 import java.util.Map;
 
 import static apoc.util.TestUtil.testCall;
@@ -58,4 +59,65 @@ public class ConvertJsonTest {
         testCall(db, "CREATE (n {json:'[1,2,3]'}) WITH n CALL apoc.convert.getJsonProperty(n, 'json') YIELD value RETURN value",
                 (row) -> assertEquals(asList(1,2,3), row.get("value")) );
     }
+
+    @Test public void testToJsonNode() throws Exception {
+        testCall(db, "CREATE (n:Person {name:'Bob'}) WITH n CALL apoc.convert.toJson(n) YIELD value RETURN id(n) as id, value",
+                (row) -> assertEquals("{\"id\":" + row.get("id") + ",\"labels\":[\"Person\"],\"properties\":{\"name\":\"Bob\"}}", row.get("value")));
+        testCall(db, "CREATE (n:Person {tags:['a','b']}) WITH n CALL apoc.convert.toJson(n) YIELD value RETURN value",
+                (row) -> assertEquals(true, ((String) row.get("value")).endsWith("\"properties\":{\"tags\":[\"a\",\"b\"]}}")));
+    }
+
+    @Test public void testToJsonRelationshipAndPath() throws Exception {
+        testCall(db, "CREATE (a)-[r:KNOWS {since:2010}]->(b) WITH r,a,b CALL apoc.convert.toJson(r) YIELD value RETURN id(r) as id, id(a) as a, id(b) as b, value",
+                (row) -> assertEquals("{\"id\":" + row.get("id") + ",\"type\":\"KNOWS\",\"start\":" + row.get("a") + ",\"end\":" + row.get("b") + ",\"properties\":{\"since\":2010}}", row.get("value")));
+        testCall(db, "CREATE p=(a:A)-[r:KNOWS]->(b:B) WITH p CALL apoc.convert.toJson(p) YIELD value RETURN value", (row) -> {
+            try {
+                Map path = Json.OBJECT_MAPPER.readValue((String) row.get("value"), Map.class);
+                assertEquals(1, path.get("length"));
+                assertEquals(2, ((List) path.get("nodes")).size());
+                assertEquals(asList("B"), ((Map) ((List) path.get("nodes")).get(1)).get("labels"));
+                assertEquals("KNOWS", ((Map) ((List) path.get("relationships")).get(0)).get("type"));
+            } catch (java.io.IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @Test public void testBatchConversions() throws Exception {
+        testCall(db, "CALL apoc.convert.toJsonBatch([[1,2],{a:1},'x',null])",
+                (row) -> assertEquals(asList("[1,2]", "{\"a\":1}", "\"x\"", "null"), row.get("value")));
+        testCall(db, "CALL apoc.convert.fromJsonMapBatch(['{\"a\":1}','{\"b\":[2]}'])",
+                (row) -> assertEquals(asList(singletonMap("a", 1), singletonMap("b", asList(2))), row.get("value")));
+        testCall(db, "CALL apoc.convert.fromJsonListBatch(['[1]','[\"a\",2]'])",
+                (row) -> assertEquals(asList(asList(1), asList("a", 2)), row.get("value")));
+    }
+
+    @Test public void testBinaryProperty() throws Exception {
+        testCall(db, "CREATE (n) WITH n CALL apoc.convert.setBinaryProperty(n, 'data', {a:[1,2,{b:'c'}]}) RETURN n",
+                (row) -> assertEquals(true, ((Node) row.get("n")).getProperty("data") instanceof byte[]));
+        testCall(db, "MATCH (n) CALL apoc.convert.getJsonProperty(n, 'data') YIELD value RETURN value",
+                (row) -> assertEquals(singletonMap("a", asList(1L, 2L, singletonMap("b", "c"))), row.get("value")));
+        testCall(db, "MATCH (n) CALL apoc.convert.getJsonPropertyPath(n, 'data', '$.a[2].b') YIELD value RETURN value",
+                (row) -> assertEquals("c", row.get("value")));
+    }
+
+    @Test public void testGetJsonPropertyPath() throws Exception {
+        testCall(db, "CREATE (n {json:'{\"a\":{\"b\":[1,{\"c\":true}]}}'}) WITH n CALL apoc.convert.getJsonPropertyPath(n, 'json', 'a.b[1]') YIELD value RETURN value",
+                (row) -> assertEquals(singletonMap("c", true), row.get("value")));
+        testCall(db, "MATCH (n) CALL apoc.convert.getJsonProperty(n, 'json') YIELD value WITH n, value " +
+                        "CALL apoc.convert.getJsonPropertyPath(n, 'json', 'a.x') YIELD value as missing RETURN value, missing",
+                (row) -> {
+                    assertEquals(singletonMap("a", singletonMap("b", asList(1, singletonMap("c", true)))), row.get("value"));
+                    assertEquals(null, row.get("missing"));
+                });
+    }
+
+    @Test public void testGetJsonPropertyAfterUpdateInSameTransaction() throws Exception {
+        testCall(db, "CREATE (n {json:'[1]'}) WITH n CALL apoc.convert.getJsonProperty(n, 'json') YIELD value as before " +
+                        "SET n.json = '[2]' WITH n, before CALL apoc.convert.getJsonProperty(n, 'json') YIELD value RETURN before, value",
+                (row) -> {
+                    assertEquals(asList(1), row.get("before"));
+                    assertEquals(asList(2), row.get("value"));
+                });
+    }
 }
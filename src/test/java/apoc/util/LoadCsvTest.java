@@ -0,0 +1,141 @@
+package apoc.util;
+
+import apoc.load.LoadCsv;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static apoc.util.TestUtil.map;
+import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LoadCsvTest {
+
+    private static final String CSV = "name,age,city\n" +
+            "Selma,8,Malmo\n" +
+            "\"Rana, Jr.\",11,\"Dal\"\"las\"\n" +
+            "\n" +
+            "Selina,18,\"New\nYork\"\n";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private GraphDatabaseService db;
+
+    @Before public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, LoadCsv.class);
+    }
+
+    @After public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test public void testLoadCsv() throws Exception {
+        testResult(db, "CALL apoc.load.csv({url},{})", map("url", write("test.csv", CSV, false)), (r) -> {
+            assertRow(r, 1L, "Selma", "8", "Malmo");
+            assertRow(r, 2L, "Rana, Jr.", "11", "Dal\"las");
+            assertRow(r, 4L, "Selina", "18", "New\nYork");
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test public void testLoadCsvWithTypesSkipAndLimit() throws Exception {
+        testResult(db, "CALL apoc.load.csv({url},{types:{age:'INTEGER'},skip:1,limit:1})", map("url", write("test.csv", CSV, false)), (r) -> {
+            Map<String, Object> row = r.next();
+            assertEquals(map("name", "Rana, Jr.", "age", 11L, "city", "Dal\"las"), row.get("map"));
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test public void testLoadCsvWithoutHeader() throws Exception {
+        testResult(db, "CALL apoc.load.csv({url},{header:false, sep:';', types:{`1`:'FLOAT'}})", map("url", write("test.csv", "a;1.5\nb;2\n", false)), (r) -> {
+            assertEquals(asList("a", 1.5d), r.next().get("list"));
+            assertEquals(asList("b", 2d), r.next().get("list"));
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test public void testLoadGzipCsv() throws Exception {
+        testCall(db, "CALL apoc.load.csv({url},{}) YIELD map WITH map WHERE map.name = 'Selma' RETURN map", map("url", write("test.csv.gz", CSV, true)),
+                (row) -> assertEquals(map("name", "Selma", "age", "8", "city", "Malmo"), row.get("map")));
+    }
+
+    @Test public void testLoadCsvParallel() throws Exception {
+        StringBuilder sb = new StringBuilder("id,value\n");
+        int rows = 10_000;
+        for (int i = 0; i < rows; i++) {
+            sb.append(i).append(",\"value ").append(i).append("\"\n");
+        }
+        String url = write("big.csv", sb.toString(), false);
+        testResult(db, "CALL apoc.load.csv({url},{parallel:4, chunkSize:4096, types:{id:'INTEGER'}})", map("url", url), (r) -> {
+            for (int i = 0; i < rows; i++) {
+                Map<String, Object> row = r.next();
+                assertEquals(i + 1L, row.get("lineNo"));
+                assertEquals(map("id", (long) i, "value", "value " + i), row.get("map"));
+            }
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test public void testLoadCsvParallelWithQuotedLineBreaks() throws Exception {
+        StringBuilder sb = new StringBuilder("id,value\n");
+        int rows = 2_000;
+        for (int i = 0; i < rows; i++) {
+            sb.append(i).append(",\"first ").append(i).append("\nsecond ").append(i).append("\"\n");
+        }
+        String url = write("quoted.csv", sb.toString(), false);
+        testResult(db, "CALL apoc.load.csv({url},{parallel:4, chunkSize:1024, types:{id:'INTEGER'}})", map("url", url), (r) -> {
+            for (int i = 0; i < rows; i++) {
+                Map<String, Object> row = r.next();
+                assertEquals(2L * i + 1, row.get("lineNo"));
+                assertEquals(map("id", (long) i, "value", "first " + i + "\nsecond " + i), row.get("map"));
+            }
+            assertFalse(r.hasNext());
+        });
+    }
+
+    @Test public void testLoadCsvWithoutHeaderNeedsColumnIndexes() throws Exception {
+        try {
+            testResult(db, "CALL apoc.load.csv({url},{header:false, types:{age:'INTEGER'}})", map("url", write("test.csv", "a,1\n", false)), (r) -> r.next());
+            fail("types with a column name were accepted without a header");
+        } catch (QueryExecutionException e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) cause = cause.getCause();
+            assertEquals(IllegalArgumentException.class, cause.getClass());
+            assertTrue(cause.getMessage().contains("'age'"));
+        }
+    }
+
+    private void assertRow(Result r, long lineNo, String... values) {
+        Map<String, Object> row = r.next();
+        assertEquals(lineNo, row.get("lineNo"));
+        assertEquals(asList(values), row.get("list"));
+        assertEquals(map("name", values[0], "age", values[1], "city", values[2]), row.get("map"));
+    }
+
+    private String write(String name, String content, boolean gzip) throws Exception {
+        File file = folder.newFile(name);
+        try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(file)) : new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file.toURI().toString();
+    }
+}
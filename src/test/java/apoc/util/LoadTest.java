@@ -7,17 +7,35 @@ import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import static apoc.util.TestUtil.map;
 import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class LoadTest {
 
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
     private GraphDatabaseService db;
 	@Before public void setUp() throws Exception {
 	    db = new TestGraphDatabaseFactory().newImpermanentDatabase();
@@ -35,4 +53,52 @@ public class LoadTest {
                     assertEquals(singletonMap("foo",asList(1,2,3)), row.get("value"));
                 });
     }
+
+    @Test public void testLoadJsonArrayStreamsElements() throws Exception {
+        testResult(db, "CALL apoc.load.json({url})", map("url", resource("people.json")),
+                (r) -> {
+                    assertEquals(map("name","Alice","age",42), r.next().get("value"));
+                    assertEquals(map("name","Bob","age",23), r.next().get("value"));
+                    assertEquals(map("name","Carol","age",31), r.next().get("value"));
+                    assertFalse(r.hasNext());
+                });
+    }
+
+    @Test public void testLoadJsonArray() throws Exception {
+        testResult(db, "CALL apoc.load.jsonArray({url})", map("url", resource("people.json")),
+                (r) -> assertEquals(asList("Alice","Bob","Carol"), names(r.<Map<String,Object>>columnAs("value"))));
+    }
+
+    @Test public void testLoadNewlineDelimitedJson() throws Exception {
+        testResult(db, "CALL apoc.load.json({url}) YIELD value RETURN value.name as name", map("url", resource("people.ndjson")),
+                (r) -> assertEquals(asList("Alice","Bob","Carol"), Iterators.asList(r.<String>columnAs("name"))));
+    }
+
+    @Test public void testLoadJsonPath() throws Exception {
+        testResult(db, "CALL apoc.load.jsonPath({url},'$.data.items')", map("url", resource("response.json")),
+                (r) -> assertEquals(asList(map("id",1),map("id",2)), Iterators.asList(r.columnAs("value"))));
+        testCall(db, "CALL apoc.load.jsonPath({url},'meta.tags[1]')", map("url", resource("response.json")),
+                (row) -> assertEquals("b", row.get("value")));
+        testResult(db, "CALL apoc.load.jsonPath({url},'address.city') YIELD value RETURN value", map("url", resource("people.ndjson")),
+                (r) -> assertEquals(asList("Berlin","Malmo"), Iterators.asList(r.<String>columnAs("value"))));
+    }
+
+    @Test public void testLoadGzipJson() throws Exception {
+        File file = folder.newFile("people.json.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(Files.readAllBytes(Paths.get(ClassLoader.getSystemResource("people.json").toURI())));
+        }
+        testResult(db, "CALL apoc.load.json({url}) YIELD value RETURN value.name as name", map("url", file.toURI().toString()),
+                (r) -> assertEquals(asList("Alice","Bob","Carol"), Iterators.asList(r.<String>columnAs("name"))));
+    }
+
+    private static List<Object> names(Iterator<Map<String,Object>> values) {
+        List<Object> names = new ArrayList<>();
+        values.forEachRemaining((v) -> names.add(v.get("name")));
+        return names;
+    }
+
+    static String resource(String name) {
+        return ClassLoader.getSystemResource(name).toString();
+    }
 }
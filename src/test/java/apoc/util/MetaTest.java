@@ -90,17 +90,17 @@ public class MetaTest {
                     Node n1 = nodes.get(0);
                     assertEquals(true,n1.hasLabel(Label.label("Meta")));
                     assertEquals(true,n1.hasLabel(Label.label("Actor")));
-                    assertEquals(1,n1.getProperty("count"));
+                    assertEquals(1L,n1.getProperty("count"));
                     assertEquals("Actor",n1.getProperty("name"));
                     Node n2 = nodes.get(1);
                     assertEquals(true,n2.hasLabel(Label.label("Meta")));
                     assertEquals(true,n2.hasLabel(Label.label("Movie")));
                     assertEquals("Movie",n2.getProperty("name"));
-                    assertEquals(1,n1.getProperty("count"));
+                    assertEquals(1L,n1.getProperty("count"));
                     List<Relationship> rels = (List<Relationship>) row.get("relationships");
                     Relationship rel = rels.iterator().next();
                     assertEquals("ACTED_IN",rel.getType().name());
-                    assertEquals(1,rel.getProperty("count"));
+                    assertEquals(1L,rel.getProperty("count"));
                 });
     }
     @Test public void testMetaGraph2() throws Exception {
@@ -111,17 +111,41 @@ public class MetaTest {
                     Node n1 = nodes.get(0);
                     assertEquals(true,n1.hasLabel(Label.label("Meta")));
                     assertEquals(true,n1.hasLabel(Label.label("Actor")));
-                    assertEquals(1,n1.getProperty("count"));
+                    assertEquals(1L,n1.getProperty("count"));
                     assertEquals("Actor",n1.getProperty("name"));
                     Node n2 = nodes.get(1);
                     assertEquals(true,n2.hasLabel(Label.label("Meta")));
                     assertEquals(true,n2.hasLabel(Label.label("Movie")));
                     assertEquals("Movie",n2.getProperty("name"));
-                    assertEquals(1,n1.getProperty("count"));
+                    assertEquals(1L,n1.getProperty("count"));
                     List<Relationship> rels = (List<Relationship>) row.get("relationships");
                     Relationship rel = rels.iterator().next();
                     assertEquals("ACTED_IN",rel.getType().name());
-                    assertEquals(1,rel.getProperty("count"));
+                    assertEquals(1L,rel.getProperty("count"));
+                    assertEquals(Collections.emptyList(),rel.getProperty("properties"));
                 });
     }
+    @Test public void testMetaGraphWithoutMaintenance() throws Exception {
+        GraphDatabaseService db = new TestGraphDatabaseFactory().newImpermanentDatabaseBuilder().setConfig("apoc.meta.graph.maintain","false").newGraphDatabase();
+        try {
+            TestUtil.registerProcedure(db,Meta.class);
+            db.execute("CREATE (:Actor {name:'Keanu'})-[:ACTED_IN {role:'Neo'}]->(:Movie) ").close();
+            testCall(db, "CALL apoc.meta.graph",
+                    (row) -> {
+                        List<Node> nodes = (List<Node>) row.get("nodes");
+                        Node n1 = nodes.get(0);
+                        assertEquals("Actor",n1.getProperty("name"));
+                        assertEquals(1L,n1.getProperty("count"));
+                        assertEquals(asList("name"),n1.getProperty("properties"));
+                        assertEquals(Collections.emptyList(),nodes.get(1).getProperty("properties"));
+                        List<Relationship> rels = (List<Relationship>) row.get("relationships");
+                        Relationship rel = rels.iterator().next();
+                        assertEquals("ACTED_IN",rel.getType().name());
+                        assertEquals(1L,rel.getProperty("count"));
+                        assertEquals(asList("role"),rel.getProperty("properties"));
+                    });
+        } finally {
+            db.shutdown();
+        }
+    }
 }
@@ -3,11 +3,14 @@ package apoc.util;
 import apoc.periodic.Periodic;
 import org.junit.*;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import static apoc.util.TestUtil.map;
 import static apoc.util.TestUtil.testCall;
-import static org.junit.Assert.assertEquals;
+import java.util.Map;
+
+import static org.junit.Assert.*;
 
 public class PeriodicTest {
 
@@ -29,13 +32,109 @@ public class PeriodicTest {
                     assertEquals(0L, row.get("delay"));
                     assertEquals(0L, row.get("rate"));
                 });
-        testCall(db, "CALL apoc.periodic.list", (r) -> {
-            assertEquals("foo", r.get("name"));
-            assertEquals(false, r.get("done"));
-        });
-        Thread.sleep(1000);
+        // finished jobs of other tests stay listed for a while
+        long start = System.currentTimeMillis();
+        Map<String, Object> info = job("foo");
+        while (!Boolean.TRUE.equals(info.get("done")) && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(50);
+            info = job("foo");
+        }
+        assertEquals(true, info.get("done"));
         assertEquals(1L,db.execute("MATCH (:Foo) RETURN count(*) as c").columnAs("c").next());
-        testCall(db, "CALL apoc.periodic.list", (r) -> assertEquals(true,r.get("done")));
+    }
+
+    @Test public void testJobStatistics() throws Exception {
+        testCall(db, "CALL apoc.periodic.submit('stats','UNWIND range(1,3) as i CREATE (:Foo {id:i})')", (row) -> {});
+        Map<String, Object> info = awaitJob("stats");
+        assertEquals(true, info.get("done"));
+        assertEquals(1L, info.get("runs"));
+        assertEquals(9L, info.get("updates"));
+        assertNull(info.get("error"));
+        assertTrue((long) info.get("lastFinished") >= (long) info.get("firstStarted"));
+        assertEquals((long) info.get("lastFinished") - (long) info.get("lastStarted"), info.get("lastDuration"));
+    }
+
+    @Test public void testJobError() throws Exception {
+        testCall(db, "CALL apoc.periodic.submit('failing','UNWIND [1,0] as i RETURN 1/i')", (row) -> {});
+        Map<String, Object> info = awaitJob("failing");
+        assertEquals(1L, info.get("runs"));
+        assertNotNull(info.get("error"));
+    }
+
+    @Test public void testCancelTerminatesRunningStatement() throws Exception {
+        db.execute("UNWIND range(1,1000) as i CREATE (:Bar)").close();
+        testCall(db, "CALL apoc.periodic.submit('slow','MATCH (a:Bar),(b:Bar),(c:Bar) RETURN count(*)')", (row) -> {});
+        long start = System.currentTimeMillis();
+        while (!Boolean.TRUE.equals(job("slow").get("running")) && System.currentTimeMillis() - start < 5000) Thread.sleep(10);
+        testCall(db, "CALL apoc.periodic.cancel('slow')", (row) -> assertEquals(true, row.get("cancelled")));
+        Map<String, Object> info = awaitJob("slow");
+        assertEquals(false, info.get("running"));
+        assertEquals(true, info.get("cancelled"));
+        assertNull(info.get("error"));
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test public void testCountdownAdaptsLimit() throws Exception {
+        db.execute("UNWIND range(1,1000) as id CREATE (:Item {id:id})").close();
+        String statement = "MATCH (i:Item) WHERE NOT i:Done WITH i LIMIT {limit} SET i:Done RETURN count(*)";
+        testCall(db, "CALL apoc.periodic.countdown('drain',{statement},0,{limit:10,targetMillis:5000})", map("statement", statement),
+                (row) -> assertEquals("drain", row.get("name")));
+        Map<String, Object> info = awaitJob("drain");
+        long start = System.currentTimeMillis();
+        while (!Boolean.TRUE.equals(info.get("done")) && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(50);
+            info = job("drain");
+        }
+        assertEquals(true, info.get("done"));
+        assertNull(info.get("error"));
+        assertEquals(1000L, info.get("updates"));
+        // limit doubles on fast runs: 10,20,40,...,640 and a final empty run
+        assertEquals(8L, info.get("runs"));
+        assertEquals(1000L, db.execute("MATCH (i:Done) RETURN count(*) as c").columnAs("c").next());
+    }
+
+    @Test public void testAdaptLimit() throws Exception {
+        assertEquals(200L, Periodic.Countdown.adapt(100, 10, 1000, 1, 1000));
+        assertEquals(50L, Periodic.Countdown.adapt(100, 10000, 1000, 1, 1000));
+        assertEquals(80L, Periodic.Countdown.adapt(100, 1250, 1000, 1, 1000));
+        assertEquals(1000L, Periodic.Countdown.adapt(800, 1, 1000, 1, 1000));
+        assertEquals(10L, Periodic.Countdown.adapt(10, 100000, 1000, 10, 1000));
+    }
+
+    @Test
+    public void testCommitCursor() throws Exception {
+        db.execute("UNWIND range(1,{count}) as id CREATE (n:Person {id:id})",map("count",RUNDONW_COUNT)).close();
+
+        String query = "MATCH (p:Person) WHERE p.id > {cursor} WITH p ORDER BY p.id LIMIT {limit} SET p:Processed RETURN max(p.id) as cursor";
+
+        testCall(db,"CALL apoc.periodic.commitCursor({query},{params})", map("query",query,"params",map("limit",BATCH_SIZE,"cursor",0)), r -> {
+            // the last run finds nothing left and returns no cursor
+            assertEquals((long)Math.ceil((double)RUNDONW_COUNT/BATCH_SIZE) + 1, r.get("executions"));
+            assertEquals(RUNDONW_COUNT, r.get("updates"));
+        });
+
+        long count = db.execute("MATCH (p:Processed) return count(*) as c").<Long>columnAs("c").next();
+        assertEquals(RUNDONW_COUNT,count);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testCommitCursorRequiresCursorColumn() throws Exception {
+        db.execute("CALL apoc.periodic.commitCursor('RETURN 1 as id',{})").close();
+    }
+
+    private Map<String, Object> job(String name) {
+        return Iterators.single(db.execute("CALL apoc.periodic.list() YIELD name, done, cancelled, running, runs, updates, firstStarted, lastStarted, lastFinished, lastDuration, error " +
+                "WITH * WHERE name = {name} RETURN *", map("name", name)));
+    }
+
+    private Map<String, Object> awaitJob(String name) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Map<String, Object> info = job(name);
+        while (((long) info.get("runs") == 0 || Boolean.TRUE.equals(info.get("running"))) && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(50);
+            info = job(name);
+        }
+        return info;
     }
 
     public static final long RUNDONW_COUNT = 1000;
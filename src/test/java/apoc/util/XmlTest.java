@@ -5,9 +5,17 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.map;
 import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 
 public class XmlTest {
@@ -35,4 +43,34 @@ public class XmlTest {
                     assertEquals(XML_AS_NESTED_MAP, value.toString());
                 });
     }
+
+    @Test public void testLoadXmlElementsByName() throws Exception {
+        testResult(db, "CALL apoc.load.xmlElements({url},'book')", map("url", LoadTest.resource("books.xml")),
+                (r) -> {
+                    List<Object> ids = new ArrayList<>();
+                    r.<Map<String,Object>>columnAs("value").forEachRemaining((v) -> ids.add(v.get("id")));
+                    assertEquals(asList("bk101","bk102"), ids);
+                });
+    }
+
+    @Test public void testLoadXmlElementsByPath() throws Exception {
+        testResult(db, "CALL apoc.load.xmlElements({url},'/catalog/*/title')", map("url", LoadTest.resource("books.xml")),
+                (r) -> assertEquals(3, Iterators.count(r)));
+        testResult(db, "CALL apoc.load.xmlElements({url},'/catalog/magazine/title')", map("url", LoadTest.resource("books.xml")),
+                (r) -> {
+                    assertEquals("{_type=title, _text=Graph Monthly}", r.next().get("value").toString());
+                    assertEquals(false, r.hasNext());
+                });
+        testResult(db, "CALL apoc.load.xmlElements({url},'book/title')", map("url", LoadTest.resource("books.xml")),
+                (r) -> {
+                    assertEquals("{_type=title, _text=XML Developer's Guide}", r.next().get("value").toString());
+                    assertEquals("{_type=title, _text=Midnight Rain}", r.next().get("value").toString());
+                    assertEquals(false, r.hasNext());
+                });
+    }
+
+    @Test public void testLoadXmlElementsNested() throws Exception {
+        testCall(db, "CALL apoc.load.xmlElements('file:databases.xml','/parent/child/grandchild') YIELD value WITH value WHERE value.name = 'Postgres' RETURN value",
+                (row) -> assertEquals("{_type=grandchild, name=Postgres, _text=Postgres is a relational database}", row.get("value").toString()));
+    }
 }